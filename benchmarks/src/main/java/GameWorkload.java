@@ -0,0 +1,26 @@
+import bench.Workload;
+import java.io.FileInputStream;
+
+/**
+ * Plays a full game with a mix of AI players (a new seed for every game).
+ * Parameters: the network file, the active players (e.g. "011" for greedy and smart) and the number of steps.
+ */
+public class GameWorkload implements Workload {
+
+    private BatchRunner runner;
+    private int seed;
+
+    @Override
+    public void setUp(String... params) throws Exception {
+        Game game;
+        try(FileInputStream in = new FileInputStream(params[0])) {
+            game = Game.load(in, PlannerWorkload.nonPersistentSettings(params[1]));
+        }
+        runner = new BatchRunner(game, Integer.parseInt(params[2]));
+    }
+
+    @Override
+    public Object run() {
+        return runner.play(seed++);
+    }
+}
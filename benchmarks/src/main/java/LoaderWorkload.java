@@ -0,0 +1,42 @@
+import bench.Workload;
+import java.io.File;
+
+/**
+ * Loads a generated network file with Game.fromFile, either from the text or from its compiled NetworkImage.
+ * The network is made by Generator, with the given number of cities in countries of 100 cities (and otherwise the
+ * defaults of Generator). The file is written to a temporary directory once, with a fixed seed, so every run loads
+ * the same network.
+ * Parameters: the number of cities and the format ("text" or "image").
+ */
+public class LoaderWorkload implements Workload, AutoCloseable {
+
+    private static final int COUNTRY_SIZE = 100;
+
+    private File file;
+    private File image;
+
+    @Override
+    public void setUp(String... params) throws Exception {
+        file = File.createTempFile("network", ".dat");
+        int cities = Integer.parseInt(params[0]);
+        Generator generator = new Generator(42);
+        generator.setCities(cities);
+        generator.setCountries((cities + COUNTRY_SIZE - 1) / COUNTRY_SIZE);
+        generator.write(file.getPath());
+        image = new File(NetworkImage.imageOf(file.getPath()));
+        if(params.length > 1 && params[1].equals("image")) {
+            NetworkImage.compile(file.getPath());
+        }
+    }
+
+    @Override
+    public Object run() {
+        return Game.fromFile(file.getPath(), PlannerWorkload.nonPersistentSettings("111"));
+    }
+
+    @Override
+    public void close() {
+        file.delete();
+        image.delete();
+    }
+}
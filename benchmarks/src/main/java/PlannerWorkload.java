@@ -0,0 +1,52 @@
+import bench.Workload;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plans the next move from every city of a network with a given Planner and search depth.
+ * Parameters: the network file, the simple name of the Planner class and the depth.
+ */
+public class PlannerWorkload implements Workload {
+
+    private Planner planner;
+    private int depth;
+    private List<City> cities = new ArrayList<>();
+
+    @Override
+    public void setUp(String... params) throws Exception {
+        Game game;
+        try(FileInputStream in = new FileInputStream(params[0])) {
+            game = Game.load(in, nonPersistentSettings("111"));
+        }
+        planner = (Planner) Class.forName(params[1]).getDeclaredConstructor().newInstance();
+        depth = Integer.parseInt(params[2]);
+        for(Country country : game.getCountries()) {
+            cities.addAll(country.getCities());
+        }
+    }
+
+    @Override
+    public Object run() {
+        int hash = 0;
+        for(City c : cities) {
+            hash = 31 * hash + planner.nextCity(c, depth).hashCode();
+        }
+        return hash;
+    }
+
+    /**
+     * Creates default Settings which are never saved to 'settings.dat'.
+     * @param players   The active players (random, greedy and smart), e.g. "101".
+     * @return          The Settings.
+     */
+    static Settings nonPersistentSettings(String players) {
+        boolean[] active = new boolean[3];
+        for(int i = 0; i < active.length; i++) {
+            active[i] = players.charAt(i) == '1';
+        }
+        Settings settings = new Settings(active, 20, 20, 10, 50, 2);
+        settings.setPersistent(false);
+        return settings;
+    }
+}
@@ -0,0 +1,42 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures playing a full game on network.dat with each mix of AI players (see GameWorkload).
+ * The mix is written like the first line of settings.dat: random, greedy and smart player.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GameBenchmark {
+
+    @Param({"100", "010", "001", "111"})
+    public String players;
+
+    @Param({"50"})
+    public int steps;
+
+    @Param({"network.dat"})
+    public String network;
+
+    private Workload workload;
+
+    @Setup
+    public void setUp() throws Exception {
+        workload = Workload.create("GameWorkload", Workload.file(network).getPath(), players, "" + steps);
+    }
+
+    @Benchmark
+    public Object playGame() {
+        return workload.run();
+    }
+}
@@ -0,0 +1,42 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures planning the next move from every city of a network, e.g. network.dat or a file made by Generator
+ * (see PlannerWorkload).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PlannerBenchmark {
+
+    @Param({"DepthFirstPlanner", "MemoizedPlanner", "PrimitivePlanner"})
+    public String planner;
+
+    @Param({"10", "18", "26"})
+    public int depth;
+
+    @Param({"network.dat"})
+    public String network;
+
+    private Workload workload;
+
+    @Setup
+    public void setUp() throws Exception {
+        workload = Workload.create("PlannerWorkload", Workload.file(network).getPath(), planner, "" + depth);
+    }
+
+    @Benchmark
+    public Object planFromEveryCity() {
+        return workload.run();
+    }
+}
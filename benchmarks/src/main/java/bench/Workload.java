@@ -0,0 +1,48 @@
+package bench;
+
+import java.io.File;
+
+/**
+ * A piece of work measured by a benchmark.
+ * The game classes live in the default package, which classes in a named package (such as the code
+ * generated by JMH) cannot refer to, so every benchmark drives a default-package Workload created by name.
+ */
+public interface Workload {
+
+    /**
+     * Prepares the workload (everything which should not be measured).
+     * @param params   The parameters of the benchmark.
+     */
+    void setUp(String... params) throws Exception;
+
+    /**
+     * Performs one operation.
+     * @return A result which is consumed by the benchmark, so the work cannot be eliminated.
+     */
+    Object run();
+
+    /**
+     * Creates a Workload by the name of its class.
+     * @param name     The name of a Workload class in the default package.
+     * @param params   The parameters passed to setUp.
+     * @return         The prepared Workload.
+     */
+    static Workload create(String name, String... params) throws Exception {
+        Workload workload = (Workload) Class.forName(name).getDeclaredConstructor().newInstance();
+        workload.setUp(params);
+        return workload;
+    }
+
+    /**
+     * Finds a file of the game, so the benchmarks can be run from the project or the benchmarks directory.
+     * @param name   The name of the file (e.g. 'network.dat').
+     * @return       The file in the working directory, or in its parent if it is not there.
+     */
+    static File file(String name) {
+        File file = new File(name);
+        if(!file.exists() && new File("..", name).exists()) {
+            return new File("..", name);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * A Planner which searches deeper and deeper until a time or node budget runs out (iterative deepening).
+ * Each iteration performs the PrimitivePlanner search with the horizon in place of MAX_DEPTH, so an iteration with
+ * horizon MAX_DEPTH gives the same result as the other planners. The move returned is the one found by the deepest
+ * iteration which completed within the budget; the first iteration always completes, so there is always a move.
+ */
+public class AnytimePlanner extends NetworkPlanner {
+
+    /** How many nodes to expand between checks of the clock */
+    private static final int CLOCK_INTERVAL = 1024;
+
+    private long timeBudget;        // Wall-clock budget per call (in nanoseconds, or <= 0 for none)
+    private long nodeBudget;        // Node budget per call (or <= 0 for none)
+    private int maxDepth;           // Deepest horizon to try
+
+    private PathBuffer[] paths;     // paths[d] holds the best path found from the city at depth d
+    private PathBuffer best;        // Best path of the deepest completed iteration
+
+    private long deadline;          // System.nanoTime() at which the current call must stop
+    private long nodes;             // Nodes expanded by the current call
+    private boolean exhausted;      // Whether the budget of the current call has run out
+    private int depthReached;       // Horizon of the deepest completed iteration of the last call
+
+    /**
+     * Creates a new AnytimePlanner with a wall-clock budget, looking at most twice MAX_DEPTH steps ahead.
+     * @param millis   The wall-clock budget per call (in milliseconds).
+     */
+    public AnytimePlanner(long millis) {
+        this(millis, 0, 2 * MAX_DEPTH);
+    }
+
+    /**
+     * Creates a new AnytimePlanner.
+     * @param millis     The wall-clock budget per call (in milliseconds, or 0 for none).
+     * @param nodes      The maximum number of nodes to expand per call (or 0 for none).
+     * @param maxDepth   The deepest horizon to search.
+     */
+    public AnytimePlanner(long millis, long nodes, int maxDepth) {
+        super(maxDepth);
+        this.timeBudget = millis * 1000000;
+        this.nodeBudget = nodes;
+        this.maxDepth = maxDepth;
+        paths = new PathBuffer[maxDepth + 2];
+        for(int d = 0; d < paths.length; d++) {
+            paths[d] = new PathBuffer(maxDepth + 1);
+        }
+        best = new PathBuffer(maxDepth + 1);
+    }
+
+    @Override
+    public City nextCity(City c, int n) {
+        int root = start(c);
+        deadline = System.nanoTime() + timeBudget;
+        nodes = 0;
+        exhausted = false;
+        depthReached = 0;
+        best.clear();
+
+        int limit = Math.min(n, maxDepth);
+        for(int horizon = 1; horizon <= limit; horizon++) {
+            search(root, n, 0, horizon);
+            if(exhausted && depthReached > 0) {
+                break;
+            }
+            best.copy(paths[0]);
+            depthReached = horizon;
+            if(exhausted) {
+                break;
+            }
+        }
+
+        if(best.isEmpty()) {
+            return c;
+        }
+        return network.getCity(network.target(best.getEdge(0)));
+    }
+
+    /**
+     * Gets the horizon of the deepest iteration completed by the last call to nextCity.
+     * @return The number of steps the returned move looked ahead.
+     */
+    public int getDepthReached() {
+        return depthReached;
+    }
+
+    /**
+     * Gets the number of nodes expanded by the last call to nextCity (over all iterations).
+     * @return The number of nodes expanded.
+     */
+    public long getNodesExpanded() {
+        return nodes;
+    }
+
+    @Override
+    public PathBuffer getPath() {
+        return best;
+    }
+
+    /**
+     * Finds the path which provides maximum value within a horizon, and stores it in paths[depth].
+     * Gives up (leaving a partial result) as soon as the budget is exhausted, unless this is the first iteration.
+     * @param c         Index of the city to travel from.
+     * @param i         The number of steps remaining.
+     * @param depth     The number of roads taken so far.
+     * @param horizon   The number of steps to look ahead (used in place of MAX_DEPTH).
+     */
+    private void search(int c, int i, int depth, int horizon) {
+        int n = Math.min(i, horizon);
+        PathBuffer best = paths[depth];
+        PathBuffer sub = paths[depth + 1];
+        best.clear();
+        if(outOfBudget() && depthReached > 0) {
+            return;
+        }
+        for(int e = network.first(c); e < network.end(c); e++) {
+            int length = network.length(e);
+            if(length > n) {
+                continue;
+            }
+            int to = network.target(e);
+            int v = ++visits[to];
+            search(to, n - length, depth + 1, horizon);
+            visits[to]--;
+
+            double value = value(sub.getValue(), sub.size(), c, to, v);
+            int newLength = sub.getLength() + length;
+            if(value > best.getValue() || (value == best.getValue() && newLength < best.getLength())) {
+                best.set(e, sub, newLength, value);
+            }
+        }
+    }
+
+    /**
+     * Counts a node and checks the budget.
+     * @return True if the budget of the current call is exhausted.
+     */
+    private boolean outOfBudget() {
+        nodes++;
+        if(exhausted) {
+            return true;
+        }
+        if(nodeBudget > 0 && nodes > nodeBudget) {
+            exhausted = true;
+        } else if(timeBudget > 0 && nodes % CLOCK_INTERVAL == 0 && System.nanoTime() > deadline) {
+            exhausted = true;
+        }
+        return exhausted;
+    }
+}
@@ -0,0 +1,179 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs many games without a GUI, as fast as possible, and writes the final money of every player to a CSV file.
+ * Is used to evaluate the AI players over many seeds.
+ *
+ * Usage: java BatchRunner [network] [games] [first seed] [steps] [output] [threads]
+ * which plays 'games' games with seeds 'first seed', 'first seed'+1, ... for 'steps' steps each.
+ * The defaults are network.dat, 100 games, seed 0, 50 steps, results.csv and one thread per processor.
+ *
+ * With several threads, every thread plays its own Game instance, loaded from an in-memory copy of the network
+ * and with its own non-persistent copy of the Settings, so threads share no mutable state and never touch the disk.
+ * Since a game only depends on its seed, the output is identical for any number of threads.
+ */
+public class BatchRunner {
+
+    private Game game;          // The game which is replayed for every seed
+    private int steps;          // Number of steps in each game
+
+    /**
+     * Creates a new BatchRunner.
+     * @param game    The game to play (loaded with Game.fromFile).
+     * @param steps   The number of steps in each game.
+     */
+    public BatchRunner(Game game, int steps) {
+        this.game = game;
+        this.steps = steps;
+    }
+
+    /**
+     * Plays one game to the end.
+     * @param seed   The seed of the game.
+     * @return       The final money of each player (in the order of getPlayers() after the reset).
+     */
+    public int[] play(int seed) {
+        game.setTotalSteps(steps);
+        game.reset(seed);
+        game.fastForward();
+        List<Player> players = game.getPlayers();
+        int[] money = new int[players.size()];
+        for(int i = 0; i < money.length; i++) {
+            money[i] = players.get(i).getMoney();
+        }
+        return money;
+    }
+
+    /**
+     * Plays a number of games with consecutive seeds.
+     * @param firstSeed   The seed of the first game.
+     * @param games       The number of games.
+     * @return            results[g] is the final money of each player in the game with seed firstSeed+g.
+     */
+    public int[][] run(int firstSeed, int games) {
+        int[][] results = new int[games][];
+        for(int g = 0; g < games; g++) {
+            results[g] = play(firstSeed + g);
+        }
+        return results;
+    }
+
+    /**
+     * Writes results as CSV (a header with the player names, then one line per game).
+     * @param out         Where to write the results.
+     * @param firstSeed   The seed of the first game.
+     * @param results     The results returned by run or runParallel.
+     */
+    public void write(PrintWriter out, int firstSeed, int[][] results) {
+        StringBuilder header = new StringBuilder("seed");
+        for(Player p : players()) {
+            header.append(',').append(p.getName());
+        }
+        out.println(header);
+
+        for(int g = 0; g < results.length; g++) {
+            StringBuilder line = new StringBuilder().append(firstSeed + g);
+            for(int m : results[g]) {
+                line.append(',').append(m);
+            }
+            out.println(line);
+        }
+        out.flush();
+    }
+
+    /**
+     * Plays a number of games with consecutive seeds on several threads.
+     * @param network     The contents of the network file.
+     * @param settings    The Settings to use (each game gets its own copy).
+     * @param steps       The number of steps in each game.
+     * @param firstSeed   The seed of the first game.
+     * @param games       The number of games.
+     * @param threads     The number of threads.
+     * @return            results[g] is the final money of each player in the game with seed firstSeed+g.
+     */
+    public static int[][] runParallel(byte[] network, Settings settings, int steps, int firstSeed, int games, int threads)
+            throws InterruptedException, ExecutionException {
+        int[][] results = new int[games][];
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for(int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    BatchRunner runner = new BatchRunner(load(network, settings), steps);
+                    int g;
+                    while((g = next.getAndIncrement()) < games) {
+                        results[g] = runner.play(firstSeed + g);
+                    }
+                }));
+            }
+            for(Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return results;
+    }
+
+    /**
+     * Loads an isolated Game from the contents of a network file.
+     * @param network    The contents of the network file.
+     * @param settings   The Settings to copy.
+     * @return           A new Game with its own, non-persistent Settings.
+     */
+    private static Game load(byte[] network, Settings settings) {
+        Settings copy = new Settings(settings);
+        copy.setPersistent(false);
+        return Game.load(new ByteArrayInputStream(network), copy);
+    }
+
+    /**
+     * Gets the players in the order they are written (the order used by Game.reset()).
+     */
+    private List<Player> players() {
+        game.reset(0);
+        return new ArrayList<>(game.getPlayers());
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        System.setProperty("java.awt.headless", "true");
+        String network = args.length > 0 ? args[0] : "network.dat";
+        int games      = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int firstSeed  = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        int steps      = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+        String output  = args.length > 4 ? args[4] : "results.csv";
+        int threads    = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+
+        byte[] bytes = Files.readAllBytes(Paths.get(network));
+        Settings settings = Settings.load("settings.dat");
+        Game game = load(bytes, settings);
+        if(game == null) {
+            System.out.println("Unable to load " + network);
+            return;
+        }
+
+        long time = System.nanoTime();
+        BatchRunner runner = new BatchRunner(game, steps);
+        int[][] results = threads <= 1 ? runner.run(firstSeed, games)
+                                       : runParallel(bytes, settings, steps, firstSeed, games, threads);
+        try(PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8))) {
+            runner.write(out, firstSeed, results);
+        }
+        time = System.nanoTime() - time;
+        System.out.printf("%d games of %d steps written to %s in %.1f ms (%d threads)%n",
+                games, steps, output, time / 1e6, Math.max(1, threads));
+    }
+}
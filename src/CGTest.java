@@ -69,4 +69,25 @@ public class CGTest
         country2.addRoads(cityF, cityG, 6);
     }
 
+    /**
+     * Tests that the planners choose the same first hop as the original depth-first search,
+     * from every city and for every number of steps up to the maximum depth.
+     */
+    @Test
+    public void plannersChooseSameFirstHop()
+    {
+        City[] cities = {cityA, cityB, cityC, cityD, cityE, cityF, cityG};
+        Planner reference = new DepthFirstPlanner();
+        Planner[] planners = {new MemoizedPlanner(), new PrimitivePlanner()};
+        for(City c : cities) {
+            for(int n = 1; n <= Planner.MAX_DEPTH; n++) {
+                City expected = reference.nextCity(c, n);
+                for(Planner planner : planners) {
+                    assertEquals(planner.getClass().getSimpleName() + " from " + c.getName() + " with " + n + " steps",
+                                 expected, planner.nextCity(c, n));
+                }
+            }
+        }
+    }
+
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ public class City implements Comparable<City> {
     private int value;
     private int initialValue;
     private Country country;
+    private int index = -1;     // Index of this City in the Network of its Game (or -1)
 
 
     public City(String name, int value, Country country) {
@@ -44,6 +45,14 @@ public class City implements Comparable<City> {
         return country;
     }
 
+    public int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
     public int compareTo(City c) {
         return name.compareTo(c.name);
     }
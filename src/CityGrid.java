@@ -0,0 +1,138 @@
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+/**
+ * A uniform grid over the GUI positions of the cities of a Network, used to find the cities near the mouse and the
+ * cities in the visible part of the map.
+ * The bounding box of the positions is divided into square cells holding about two cities each, and the cities
+ * of every cell are stored contiguously, so a query only looks at the cells its rectangle overlaps.
+ * Cities without a GUI position are left out.
+ */
+public class CityGrid {
+
+    /** Average number of cities per cell */
+    private static final int CITIES_PER_CELL = 2;
+
+    private Network network;        // The Network the grid was built from
+    private int minX, minY;         // Top left corner of the grid (in pixels)
+    private int maxX, maxY;         // Largest coordinates of a city (in pixels)
+    private int cellSize;           // Side length of a cell (in pixels)
+    private int columns, rows;      // Size of the grid (in cells)
+    private int[] cellStart;        // Cities of cell i are cities[cellStart[i]] .. cities[cellStart[i+1]-1]
+    private int[] cities;           // Network index of the cities, by cell
+    private int[] xs, ys;           // Position of the cities, in the same order as 'cities'
+
+    /**
+     * Builds the grid of a Game.
+     * @param game   The Game (its GUI positions and Network).
+     */
+    public CityGrid(Game game) {
+        network = game.getNetwork();
+        int n = 0;
+        minX = Integer.MAX_VALUE;
+        minY = Integer.MAX_VALUE;
+        maxX = Integer.MIN_VALUE;
+        maxY = Integer.MIN_VALUE;
+        for(int i = 0; i < network.size(); i++) {
+            Point p = game.getPosition(network.getCity(i));
+            if(p != null) {
+                minX = Math.min(minX, p.x);
+                minY = Math.min(minY, p.y);
+                maxX = Math.max(maxX, p.x);
+                maxY = Math.max(maxY, p.y);
+                n++;
+            }
+        }
+        if(n == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+
+        // Square cells, so the cities are spread over about n/CITIES_PER_CELL cells
+        long width = (long) maxX - minX + 1, height = (long) maxY - minY + 1;
+        double area = (double) width * height / Math.max(1, n / CITIES_PER_CELL);
+        cellSize = (int) Math.max(1, Math.min(Integer.MAX_VALUE / 2, Math.ceil(Math.sqrt(area))));
+        columns = (int) ((width + cellSize - 1) / cellSize);
+        rows = (int) ((height + cellSize - 1) / cellSize);
+
+        // Count the cities of every cell, then place them (counting sort)
+        int[] cell = new int[network.size()];
+        cellStart = new int[columns * rows + 1];
+        for(int i = 0; i < network.size(); i++) {
+            Point p = game.getPosition(network.getCity(i));
+            cell[i] = p == null ? -1 : column(p.x) + columns * row(p.y);
+            if(cell[i] >= 0) {
+                cellStart[cell[i] + 1]++;
+            }
+        }
+        for(int c = 0; c < columns * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] next = new int[columns * rows];
+        System.arraycopy(cellStart, 0, next, 0, next.length);
+        cities = new int[n];
+        xs = new int[n];
+        ys = new int[n];
+        for(int i = 0; i < network.size(); i++) {
+            if(cell[i] >= 0) {
+                Point p = game.getPosition(network.getCity(i));
+                int k = next[cell[i]]++;
+                cities[k] = i;
+                xs[k] = p.x;
+                ys[k] = p.y;
+            }
+        }
+    }
+
+    /**
+     * Gets the Network this grid was built from.
+     * @return   The Network.
+     */
+    public Network getNetwork() {
+        return network;
+    }
+
+    /**
+     * Gets the smallest rectangle containing the GUI positions of all cities.
+     * @return   The bounds (in pixels).
+     */
+    public Rectangle getBounds() {
+        return new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+    }
+
+    /**
+     * Finds the cities whose GUI positions are in a rectangle.
+     * @param left     Smallest x-coordinate of the rectangle (in pixels).
+     * @param top      Smallest y-coordinate of the rectangle.
+     * @param right    Largest x-coordinate of the rectangle.
+     * @param bottom   Largest y-coordinate of the rectangle.
+     * @param result   Receives the Network indices of the cities, in increasing order
+     *                 (must have room for all cities of the Network).
+     * @return         The number of cities found.
+     */
+    public int citiesIn(int left, int top, int right, int bottom, int[] result) {
+        if(right < minX || bottom < minY || left > maxX || top > maxY) {
+            return 0;
+        }
+        int n = 0;
+        for(int row = row(top); row <= row(bottom); row++) {
+            for(int c = row * columns + column(left); c <= row * columns + column(right); c++) {
+                for(int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+                    if(xs[k] >= left && xs[k] <= right && ys[k] >= top && ys[k] <= bottom) {
+                        result[n++] = cities[k];
+                    }
+                }
+            }
+        }
+        Arrays.sort(result, 0, n);
+        return n;
+    }
+
+    private int column(long x) {
+        return (int) Math.max(0, Math.min(columns - 1, (x - minX) / cellSize));
+    }
+
+    private int row(long y) {
+        return (int) Math.max(0, Math.min(rows - 1, (y - minY) / cellSize));
+    }
+}
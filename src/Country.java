@@ -3,11 +3,14 @@ import java.util.*;
 public class Country {
     private String name;
     private Map<City, Set<Road>> network;
+    private Map<String, City> cities;   // Index of the cities in this Country by name
     private Game game;
+    private Network deferred;           // Network whose roads have not been added yet (see deferRoads)
 
 
     public Country(String name) {
         network = new TreeMap<>();
+        cities = new HashMap<>();
         this.name = name;
     }
 
@@ -34,34 +37,61 @@ public class Country {
     }
 
     public City getCity(String name) {
-        return getCities().stream()
-                .filter(n -> name.equals(n.getName()))
-                .findAny()
-                .orElse(null);
+        return cities.get(name);
     }
 
     public void addCity(City c)  {
         network.put(c, new TreeSet<>());
+        cities.putIfAbsent(c.getName(), c);
+        if(game != null) {
+            game.indexCity(c);
+        }
     }
 
     public void addRoads(City a, City b, int length) {
         if(length <= 0 || a.equals(b)) {
             return;
         }
-        if(network.containsKey(a)) {
-            Road r = new Road(a, b, length);
-            network.get(a).add(r);
+        if(deferred != null) {
+            addDeferredRoads();
+        }
+        Set<Road> roads = network.get(a);
+        if(roads != null) {
+            roads.add(new Road(a, b, length));
         }
-        if(network.containsKey(b)) {
-            Road r = new Road(b, a, length);
-            network.get(b).add(r);
+        roads = network.get(b);
+        if(roads != null) {
+            roads.add(new Road(b, a, length));
         }
     }
 
     public Set<Road> getRoads(City c) {
+        if(deferred != null) {
+            addDeferredRoads();
+        }
         return network.get(c);
     }
 
+    /**
+     * Lets the roads of the cities in this Country be created from a Network the first time they are needed,
+     * instead of while loading (used by NetworkImage). The cities must have been added already.
+     */
+    void deferRoads(Network source) {
+        deferred = source;
+    }
+
+    private void addDeferredRoads() {
+        Network source = deferred;
+        deferred = null;
+        for(Map.Entry<City, Set<Road>> entry : network.entrySet()) {
+            City from = entry.getKey();
+            int c = source.indexOf(from);
+            for(int e = source.first(c); e < source.end(c); e++) {
+                entry.getValue().add(new Road(from, source.getCity(source.target(e)), source.length(e)));
+            }
+        }
+    }
+
     public void reset() {
         getCities().stream()
                    .forEach(c -> c.reset());
@@ -76,6 +106,17 @@ public class Country {
         if (from.equals(to)) {
             return position(from);
         }
+        if (game != null) {
+            Network net = game.getNetwork();
+            int f = net.indexOf(from), t = net.indexOf(to);
+            if (f >= 0 && t >= 0 && from.getCountry() == this) {
+                int e = net.edge(f, t);
+                return e < 0 ? position(from) : new Position(from, to, net.length(e));
+            }
+        }
+        if (deferred != null) {
+            addDeferredRoads();
+        }
         if (network.containsKey(from)) {
             Iterator<Road> it = network.get(from).iterator();
             while (it.hasNext()) {
@@ -10,22 +10,27 @@ import java.awt.FlowLayout;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.GridLayout;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.Shape;
 import java.awt.Stroke;
+import java.awt.Transparency;
 import java.awt.event.*;
 import java.awt.geom.Ellipse2D;
+import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.stream.*;
 
-import javax.imageio.ImageIO;
 import javax.swing.BoxLayout;
 import javax.swing.ButtonGroup;
 import javax.swing.JButton;
@@ -39,8 +44,8 @@ import javax.swing.JPanel;
 import javax.swing.JRadioButton;
 import javax.swing.WindowConstants;
 import javax.swing.JTextField;
-import javax.swing.Timer;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
 import javax.swing.filechooser.FileNameExtensionFilter;
@@ -50,6 +55,7 @@ import javax.swing.filechooser.FileNameExtensionFilter;
  * Is used to get a graphical view of the data in a Game.
  * 
  * Keyboard controls and <space> to turnAround.
+ * The mouse wheel zooms, dragging moves the map and <home> shows all of it again.
  * 
  * @author Nikolaj Ignatieff Schwartzbach
  * @version 1.1.0
@@ -90,8 +96,8 @@ public class GUI {
     public int WIDTH = 520,
                HEIGHT = 635;
     
-    /** Main game Timer */
-    private Timer timer;
+    /** Plays the game on its own thread (the Game is only used through it, see Simulation) */
+    private Simulation simulation;
     
     /** Whether or not this game is currently paused */
     private boolean paused = false;
@@ -99,18 +105,31 @@ public class GUI {
     /** Reference to the City which is currently under the mouse */
     public static City hover;
     
+    /** Where the mouse was when the map was last moved by dragging (or 'null' if the mouse is not pressed) */
+    private Point dragged;
+    
     /** The current game speed (0 = stop, 1 = slow, .. ) */
     public static int speed = 2;
     
     /** Maps which keys are being held down at this step */
     private Map<Integer, Boolean> press = new HashMap<>();
     
+    /** The direction chosen with the keyboard (only used on the simulation thread) */
     private double currentDirection = 0;
     
     private boolean usedKeyboard = false;
     
     private boolean optionsShowing = false;
     
+    /** Records the games played to 'last.log' (or 'null' if they could not be recorded) */
+    private GameRecorder recorder;
+    
+    /** The replay being shown (or 'null' when the user is playing). Only used on the simulation thread. */
+    private GameReplay replay;
+    
+    /** The Settings of the user (the Game has other Settings while a replay is shown) */
+    private Settings settings;
+    
     /**
      * Constructor for the GUI class.
      * Creates a Game instance autonomously.
@@ -120,28 +139,38 @@ public class GUI {
         //Initialize Game
         game = Game.fromFile("network.dat");
         
+        //Record the games played to 'last.log'
+        settings = game.getSettings();
+        try {
+            recorder = new GameRecorder(Paths.get("last.log"));
+            game.setRecorder(recorder);
+        } catch (IOException e) {
+            System.out.println("Unable to record the games: " + e.getMessage());
+        }
+        
+        //Play the game on its own thread, and repaint when a step has been taken
+        simulation = new Simulation(game, frameDelay, this::step, this::showSnapshot);
+        
         //Initialize buttons
         buttons = createButtonPanel();      
         options = createOptionsDialogBox();
         
         //Initialize ActorPanel
-        panel = new WorldPanel(game, WIDTH, HEIGHT);
+        panel = new WorldPanel(game, simulation, WIDTH, HEIGHT);
         panel.setPreferredSize(new Dimension(WIDTH, HEIGHT));
         
         
         //Handle mouse click events in the inner window
-        panel.addMouseListener(new MouseAdapter() {
+        MouseAdapter mouse = new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                //Click on cities
-                for(Country country : game.getCountries()){
-                    for(City c : country.getCities()){
-                        Point p = game.getPosition(c);
-                        double dist = Math.hypot(p.getX() - e.getX(), p.getY() - e.getY());
-                        if(dist < WorldPanel.MIN_CIRCLE_RADIUS + 5){
+                //Click on cities (the closest one, if the circles of several cities are clicked)
+                City c = panel.getCityAt(e.getX(), e.getY());
+                if(c != null){
+                    simulation.submit(() -> {
+                        if(replay == null)
                             game.clickCity(c);
-                        }
-                    }
+                    });
                 }
                 
                 //Click to change game speed
@@ -151,42 +180,46 @@ public class GUI {
                     setSpeed(speed);
                 }
             }
-        });
+            
+            @Override
+            public void mousePressed(MouseEvent e) {
+                dragged = e.getPoint();
+            }
+            
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                dragged = null;
+                updateHover(e.getX(), e.getY());
+            }
+            
+            //Zoom around the mouse
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                panel.zoom(-e.getWheelRotation(), e.getX(), e.getY());
+                updateHover(e.getX(), e.getY());
+            }
+        };
+        panel.addMouseListener(mouse);
+        panel.addMouseWheelListener(mouse);
         
         //Hovering over cities
         panel.addMouseMotionListener(new MouseMotionListener() {
 
+            //Move the map
             @Override
-            public void mouseDragged(MouseEvent arg0) { }
+            public void mouseDragged(MouseEvent e) {
+                if(dragged == null)
+                    return;
+                panel.pan(e.getX() - dragged.x, e.getY() - dragged.y);
+                dragged = e.getPoint();
+                Cursor cursor = Cursor.getPredefinedCursor(Cursor.MOVE_CURSOR);
+                if(panel.getCursor() != cursor)
+                    panel.setCursor(cursor);
+            }
 
             @Override
             public void mouseMoved(MouseEvent e){
-                
-                //Assume not hovering 
-                int i=0;
-                panel.setCursor(new Cursor(Cursor.DEFAULT_CURSOR));
-                
-                //Hover over cities
-                for(Country country : game.getCountries()){
-                    for(City c : country.getCities()){
-                        Point p = game.getPosition(c);
-                        double dist = Math.hypot(p.getX() - e.getX(), p.getY() - e.getY());
-                        if(dist < WorldPanel.MIN_CIRCLE_RADIUS + 5){
-                            panel.setCursor(new Cursor(Cursor.HAND_CURSOR));
-                            i++;
-                            hover = c;
-                            break;
-                        }
-                    }
-                }
-                if(i==0)
-                    hover = null;
-                
-                //Hovering over game speed
-                if(e.getX()>280 && e.getX()<280+39*4+6 && e.getY()>590 && e.getY()<610){
-                    panel.setCursor(new Cursor(Cursor.HAND_CURSOR));
-                }
-                mainFrame.repaint();
+                updateHover(e.getX(), e.getY());
             }
             
         });
@@ -217,8 +250,15 @@ public class GUI {
             public void keyTyped(KeyEvent e) {}
 
             public void keyPressed(KeyEvent e) {
+                if(e.getKeyCode() == KeyEvent.VK_HOME){
+                    panel.resetView();
+                    return;
+                }
                 if(e.getKeyCode() == KeyEvent.VK_SPACE){
-                    game.getGUIPlayer().turnAround();
+                    simulation.submit(() -> {
+                        if(replay == null)
+                            game.turnAround();
+                    });
                     return;
                 }
                 press.put(e.getKeyCode(), true);
@@ -234,41 +274,55 @@ public class GUI {
         }
         panel.addKeyListener(kl);
         
-        //Initialize the game timer
-        timer = new Timer(frameDelay, e->{
-            Player p = game.getGUIPlayer();
-            if(usedKeyboard && p.getPosition().hasArrived()){
-                City playerCity = p.getPosition().getTo();
+        //Apply existing settings to current game
+        applyExistingSettings();
                 
-                City best = null;
-                double bestAngle = 2*Math.PI;
-                Point posPlayer = game.getPosition(playerCity);
-                for(Road r : p.getCountry().getRoads(playerCity)){
-                    Point posCity = game.getPosition(r.getTo());
-                    double cityAngle = Math.atan2(-posCity.y + posPlayer.y, posCity.x - posPlayer.x);
-                    double newAngle = angleDiff(cityAngle, currentDirection);
-                    if(newAngle < bestAngle){
-                        best = r.getTo();
-                        bestAngle = newAngle;
-                    }
-                }
-                if(best != null && bestAngle < Math.PI/4){
-                    game.clickCity(best);
+    }
+    
+    /**
+     * Plays one step of the game (or of the replay being shown).
+     * Is run on the simulation thread.
+     */
+    private void step(){
+        Player p = game.getGUIPlayer();
+        if(usedKeyboard && replay == null && p.getPosition().hasArrived()){
+            City playerCity = p.getPosition().getTo();
+            
+            City best = null;
+            double bestAngle = 2*Math.PI;
+            Point posPlayer = game.getPosition(playerCity);
+            for(Road r : p.getCountry().getRoads(playerCity)){
+                Point posCity = game.getPosition(r.getTo());
+                double cityAngle = Math.atan2(-posCity.y + posPlayer.y, posCity.x - posPlayer.x);
+                double newAngle = angleDiff(cityAngle, currentDirection);
+                if(newAngle < bestAngle){
+                    best = r.getTo();
+                    bestAngle = newAngle;
                 }
-                
-                currentDirection = -1;
-                usedKeyboard = false;
             }
+            if(best != null && bestAngle < Math.PI/4){
+                game.clickCity(best);
+            }
+            
+            currentDirection = -1;
+            usedKeyboard = false;
+        }
+        if(replay != null)
+            replay.step();
+        else
             game.step();
-            optionsButton.setEnabled(!game.ongoing());
-            pauseResumeButton.setEnabled(game.ongoing());
-            abortButton.setEnabled(game.ongoing());
-            mainFrame.repaint();
-        });
-
-        //Apply existing settings to current game
-        applyExistingSettings();
-                
+    }
+    
+    /**
+     * Shows the last snapshot published by the simulation.
+     * Is run on the Swing event thread.
+     */
+    private void showSnapshot(){
+        boolean ongoing = simulation.getSnapshot().isOngoing();
+        optionsButton.setEnabled(!ongoing);
+        pauseResumeButton.setEnabled(ongoing);
+        abortButton.setEnabled(ongoing);
+        panel.repaint();
     }
     
     /**
@@ -289,16 +343,16 @@ public class GUI {
     public void applyExistingSettings(){
         SwingUtilities.invokeLater(() -> {
             //Active players
-            random.setSelected(game.getSettings().isActive(0));
-            greedy.setSelected(game.getSettings().isActive(1));
-            smart.setSelected(game.getSettings().isActive(2));
+            random.setSelected(settings.isActive(0));
+            greedy.setSelected(settings.isActive(1));
+            smart.setSelected(settings.isActive(2));
         
             //Text-fields
-            tollSizeTextField.setText(""+game.getSettings().getTollToBePaid());
-            muggingTextField.setText(""+game.getSettings().getRisk());                          //+
+            tollSizeTextField.setText(""+settings.getTollToBePaid());
+            muggingTextField.setText(""+settings.getRisk());                          //+
         
             //Game speed
-            speed = game.getSettings().getGameSpeed();
+            speed = settings.getGameSpeed();
             setSpeed(speed);
         });
         
@@ -310,8 +364,8 @@ public class GUI {
      */
     public void setSpeed(int speed){
         SwingUtilities.invokeLater(() -> {
-            //Stop the game timer, and unselect all GUI buttons
-            timer.stop();
+            //Stop the simulation, and unselect all GUI buttons
+            simulation.stop();
             slowButton.setSelected(false);
             medButton.setSelected(false);
             fastButton.setSelected(false);
@@ -321,30 +375,30 @@ public class GUI {
             switch(speed){
                 case 1:
                     slowButton.setSelected(true);
-                    timer.setDelay(3000);
+                    simulation.setDelay(3000);
                     if(!paused)
-                        timer.start();
+                        simulation.start();
                     break;
                 case 2:
                     medButton.setSelected(true);
-                    timer.setDelay(1000);
+                    simulation.setDelay(1000);
                     if(!paused)
-                        timer.start();
+                        simulation.start();
                     break;
                 case 3:
                     fastButton.setSelected(true);
-                    timer.setDelay(400);
+                    simulation.setDelay(400);
                     if(!paused)
-                        timer.start();
+                        simulation.start();
                     break;
                 case 4:
                     sonicButton.setSelected(true);
-                    timer.setDelay(100);
+                    simulation.setDelay(100);
                     if(!paused)
-                        timer.start();
+                        simulation.start();
                     break;
             }
-            game.getSettings().setGameSpeed(speed);
+            settings.setGameSpeed(speed);
         });
     }
     
@@ -352,10 +406,10 @@ public class GUI {
         SwingUtilities.invokeLater(() -> {
                 paused = !paused;
                 if(paused){
-                    timer.stop();
+                    simulation.stop();
                     pauseResumeButton.setText("Resume game");
                 } else {
-                    timer.start();
+                    simulation.start();
                     pauseResumeButton.setText("Pause game");
                 }
         });
@@ -364,8 +418,8 @@ public class GUI {
     public void showOptions() {
         optionsShowing = true;
         
-        //Stop the game timer
-        timer.stop(); 
+        //Stop the simulation
+        simulation.stop(); 
         
         //Hide the main window
         mainFrame.setVisible(false); 
@@ -375,8 +429,10 @@ public class GUI {
     }
     
     public void newGame() {
-        game.reset(); 
-        mainFrame.repaint();
+        simulation.submit(() -> {
+            stopReplay();
+            game.reset();
+        });
     }
     
     /**
@@ -404,7 +460,7 @@ public class GUI {
         
         //Add the 'Abort game'-button
         abortButton = new JButton("Abort game");
-        abortButton.addActionListener(e -> game.abort());
+        abortButton.addActionListener(e -> simulation.submit(game::abort));
         buttons.add(abortButton);
 
         //Add the 'Options...'-button
@@ -419,12 +475,15 @@ public class GUI {
     
     private void applyOptions() {
         optionsShowing = false;
-        game.reset();
         
         //Enabled players
-        game.getSettings().setActive(0, random.isSelected());
-        game.getSettings().setActive(1, greedy.isSelected());
-        game.getSettings().setActive(2, smart.isSelected());
+        boolean[] active = { random.isSelected(), greedy.isSelected(), smart.isSelected() };
+        simulation.submit(() -> {
+            stopReplay();
+            game.reset();
+            for(int i = 0; i < active.length; i++)
+                settings.setActive(i, active[i]);
+        });
         
         //Toll size & mugging
         int tollSize, riskRob;
@@ -440,8 +499,10 @@ public class GUI {
             return;
         }
         
-        game.getSettings().setRisk(riskRob);
-        game.getSettings().setTollToBePaid(tollSize);
+        simulation.submit(() -> {
+            settings.setRisk(riskRob);
+            settings.setTollToBePaid(tollSize);
+        });
        
         
         mainFrame.setVisible(false);
@@ -463,6 +524,29 @@ public class GUI {
         setSpeed(speed);
     }
         
+    /**
+     * Finds the city under the mouse, and shows which of the things under it can be clicked.
+     * @param x X-coordinate of the mouse on the panel.
+     * @param y Y-coordinate of the mouse on the panel.
+     */
+    private void updateHover(int x, int y){
+        //Hover over cities
+        City previous = hover;
+        hover = panel.getCityAt(x, y);
+        Cursor cursor = Cursor.getPredefinedCursor(hover != null ? Cursor.HAND_CURSOR : Cursor.DEFAULT_CURSOR);
+        
+        //Hovering over game speed
+        if(x>280 && x<280+39*4+6 && y>590 && y<610){
+            cursor = Cursor.getPredefinedCursor(Cursor.HAND_CURSOR);
+        }
+        if(panel.getCursor() != cursor)
+            panel.setCursor(cursor);
+        
+        //Only the hovered city is drawn differently, so moving the mouse elsewhere needs no repaint
+        if(hover != previous)
+            panel.hoverChanged(previous, hover);
+    }
+    
     /**
      * Updates the next direction based on the 'press' map.
      */
@@ -472,10 +556,12 @@ public class GUI {
                 u = press.getOrDefault(KeyEvent.VK_UP, false),
                 d = press.getOrDefault(KeyEvent.VK_DOWN, false);
                 
-        usedKeyboard = l || r || u || d && !(l && r && u && d);
+        boolean used = l || r || u || d && !(l && r && u && d);
         
-        if(!usedKeyboard)
+        if(!used){
+            simulation.submit(() -> usedKeyboard = false);
             return;
+        }
             
         int h = 0, v = 0;
         
@@ -487,7 +573,11 @@ public class GUI {
         if(u && !d) v = -1;
         if(d && !u) v = 1;
         
-        currentDirection = Math.atan2(-v,h);
+        double direction = Math.atan2(-v,h);
+        simulation.submit(() -> {
+            usedKeyboard = true;
+            currentDirection = direction;
+        });
     }
     
     /**
@@ -594,7 +684,10 @@ public class GUI {
         frame.addWindowListener(new WindowAdapter() {
            public void windowClosing(WindowEvent e){
                optionsShowing = false;
-               game.reset();
+               simulation.submit(() -> {
+                   stopReplay();
+                   game.reset();
+               });
                mainFrame.setVisible(false);
                mainFrame.setVisible(true);
                mainFrame.repaint();
@@ -625,25 +718,90 @@ public class GUI {
     /**
      * Tests the Save button.
      * This method is invoked when testing the functionality of the Save button.
+     * Saves the games recorded so far (see 'last.log') to a file chosen by the user.
      */
     private void testSaveButton(){
-        JOptionPane.showMessageDialog(mainFrame, "You have clicked the 'Save' button.", "Information", JOptionPane.INFORMATION_MESSAGE);
+        if(recorder == null || fileChooser.showSaveDialog(mainFrame) != JFileChooser.APPROVE_OPTION)
+            return;
+        Path target = fileChooser.getSelectedFile().toPath();
+        //The recorder is written to by the simulation thread
+        simulation.submit(() -> {
+            try {
+                recorder.flush();
+                Files.copy(Paths.get("last.log"), target, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                showMessage("Unable to save the log: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
     }
 
     /**
      * Tests the Play button.
      * This method is invoked when testing the functionality of the Play button.
+     * Shows the last game of a log chosen by the user.
      */
     private void testPlayButton(){
-        JOptionPane.showMessageDialog(mainFrame, "You have clicked the 'Play' button.", "Information", JOptionPane.INFORMATION_MESSAGE);
+        if(fileChooser.showOpenDialog(mainFrame) == JFileChooser.APPROVE_OPTION)
+            playLog(fileChooser.getSelectedFile().toPath());
     }
 
     /**
      * Tests the Repeat button.
      * This method is invoked when testing the functionality of the Repeat button.
+     * Shows the last game recorded in 'last.log' again.
      */
     private void testRepeatButton(){
-        JOptionPane.showMessageDialog(mainFrame, "You have clicked the 'Repeat' button.", "Information", JOptionPane.INFORMATION_MESSAGE);
+        simulation.submit(() -> {
+            try {
+                if(recorder != null)
+                    recorder.flush();
+            } catch (IOException e) {
+                System.out.println("Unable to write the log: " + e.getMessage());
+            }
+        });
+        playLog(Paths.get("last.log"));
+    }
+    
+    /**
+     * Shows the last game of a log (the inputs of the user are ignored until a new game is started).
+     * @param path Path of the log.
+     */
+    private void playLog(Path path){
+        simulation.submit(() -> {
+            try {
+                GameReplay r = new GameReplay(path, game);
+                if(r.getGameCount() == 0){
+                    stopReplay();
+                    showMessage("The log has no games.", "Information", JOptionPane.INFORMATION_MESSAGE);
+                    return;
+                }
+                r.start(r.getGameCount() - 1);
+                replay = r;
+            } catch (IOException | IllegalArgumentException e) {
+                stopReplay();
+                showMessage("Unable to play the log: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
+    
+    /**
+     * Shows a message dialog on the Swing event thread (so it can be called from the simulation thread).
+     * @param message The message.
+     * @param title The title of the dialog.
+     * @param type The type of message (e.g. JOptionPane.ERROR_MESSAGE).
+     */
+    private void showMessage(String message, String title, int type){
+        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(mainFrame, message, title, type));
+    }
+    
+    /**
+     * Stops showing a replay (if any), and lets the user play again with the user's Settings.
+     * Is run on the simulation thread.
+     */
+    private void stopReplay(){
+        replay = null;
+        game.setSettings(settings);
+        game.setRecorder(recorder);
     }
     
     private void startGUI(){
@@ -676,6 +834,31 @@ class WorldPanel extends JPanel {
                              ROAD_CIRCLE_RADIUS  = 2,
                              PLAYER_RADIUS = 4;
     
+    /** Frames per second of the animation of the players between steps */
+    private final static int FRAME_RATE = 60;
+    
+    /** Where the name and value of the hovered city are drawn */
+    private final static Rectangle CITY_INFO = new Rectangle(345, 440, 175, 52);
+    
+    /** Side length of the tiles the map and the roads are drawn in (in pixels on the screen) */
+    private final static int TILE_SIZE = 256;
+    
+    /** Zoom levels per doubling of the zoom, and the largest zoom level (the zoom is 2^(level/ZOOM_STEPS)) */
+    private final static int ZOOM_STEPS = 2,
+                             MAX_ZOOM_LEVEL = 8;
+    
+    /** Part of the map (in pixels on the screen) which is always kept on the panel when panning */
+    private final static int VIEW_MARGIN = 64;
+    
+    /** Smallest distance on the screen between a shown city and a less important one (which is hidden if closer) */
+    private final static int CITY_SPACING = 2 * MIN_CIRCLE_RADIUS;
+    
+    /** Largest number of roads in a tile which are drawn smoothly (more roads are drawn without anti-aliasing) */
+    private final static int MAX_SMOOTH_ROADS = 1000;
+    
+    /** Smallest distance on the screen between the dots of a road (roads with closer dots are drawn without) */
+    private final static int ROAD_DOT_SPACING = 3 * ROAD_CIRCLE_RADIUS;
+    
     private final static Color COLOR_BACKGROUND     = new Color(116, 204, 244),
                                COLOR_CITY_STROKE    = Color.BLACK,
                                COLOR_ROAD           = Color.WHITE,
@@ -697,18 +880,231 @@ class WorldPanel extends JPanel {
     private int width, height;
     private Game game;
     
-    private BufferedImage img;
+    /** The Simulation playing 'game' (the Game itself is only used for the GUI positions of its cities) */
+    private Simulation simulation;
+    
+    private MapImage map;
+    
+    /** The zoom level, and the position of the view (the top left corner of the panel, in zoomed pixels) */
+    private int zoomLevel, viewX, viewY;
+    
+    /** Tiles of the map, the roads and their dots (which do not change during a game), drawn by renderTile */
+    private final Map<Long, BufferedImage> tiles = new LinkedHashMap<Long, BufferedImage>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+        
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest){
+            //Keep the tiles of about two screens
+            return size() > 2 * (width / TILE_SIZE + 2) * (height / TILE_SIZE + 2);
+        }
+    };
+    
+    /** The Network the tiles were drawn from, and the scale of the screen they were drawn for */
+    private Network backgroundNetwork;
+    private double backgroundScale;
+    
+    /** The roads of 'backgroundNetwork', its cities from the most important, and the cities shown at each zoom level */
+    private RoadGrid roads;
+    private int[] byImportance;
+    private final Map<Integer, BitSet> shownCities = new HashMap<Integer, BitSet>();
+    
+    /** Receives the cities and roads found in the grids */
+    private int[] found = new int[0];
     
-    public WorldPanel(Game game, int width, int height){
+    /** The shape of a road dot (reused for every dot) */
+    private final Ellipse2D.Double dot = new Ellipse2D.Double();
+    
+    /** Images of cities (drawn by drawCity), by value (its colour only changes between 0 and 250) and hover */
+    private final BufferedImage[][] citySprites = new BufferedImage[2][251];
+    
+    /** Moves the players between steps (see animate) */
+    private Timer animation;
+    
+    /** The time (System.nanoTime()) the players are drawn at, and where each player was last drawn */
+    private long frameTime = System.nanoTime();
+    private Point2D.Double[] playerPoints = new Point2D.Double[0];
+    
+    public WorldPanel(Game game, Simulation simulation, int width, int height){
         this.game = game;
+        this.simulation = simulation;
         this.width = width;
         this.height = height;
-        try {
-            this.img = ImageIO.read(new File("map.png"));
-        } catch (IOException e) {
-            e.printStackTrace();
+        this.map = new MapImage(new File("map.png"));
+        animation = new Timer(1000 / FRAME_RATE, e -> animate());
+    }
+    
+    @Override
+    public void addNotify(){
+        super.addNotify();
+        animation.start();
+    }
+    
+    @Override
+    public void removeNotify(){
+        animation.stop();
+        super.removeNotify();
+    }
+    
+    /**
+     * Moves the players to where they are now (between the last step and the next).
+     * Only the areas the players move from and to are repainted, and nothing is painted if no player has moved.
+     * The RepaintManager merges the areas, so the panel is painted once per frame however many players move.
+     */
+    private void animate(){
+        RenderSnapshot snapshot = simulation.getSnapshot();
+        frameTime = System.nanoTime();
+        if(playerPoints.length != snapshot.getPlayerCount()){
+            repaint();
+            return;
+        }
+        for(int p=0; p<playerPoints.length; p++){
+            //Players are drawn at fractions of pixels, so even moving less than a pixel changes how they look
+            Point2D.Double old = playerPoints[p],
+                           now = snapshot.isEnabled(p) ? playerPoint(snapshot, p) : null;
+            if(Objects.equals(old, now))
+                continue;
+            playerPoints[p] = now;
+            repaint(old == null ? playerBounds(now) :
+                    now == null ? playerBounds(old) : playerBounds(old).union(playerBounds(now)));
         }
     }
+    
+    /**
+     * Repaints the cities whose hover state changed, and the name and value of the hovered city.
+     * @param previous The city which was hovered (or 'null').
+     * @param hover The city which is hovered now (or 'null').
+     */
+    public void hoverChanged(City previous, City hover){
+        for(City c : new City[]{ previous, hover }){
+            if(c != null){
+                Point pos = toScreen(getPosition(c));
+                int radius = MIN_CIRCLE_RADIUS + 2;
+                repaint(pos.x - radius - 2, pos.y - radius - 2, 2*radius + 4, 2*radius + 4);
+            }
+        }
+        repaint(CITY_INFO);
+    }
+
+    /**
+     * Gets the zoom of the view.
+     * @return The size on the screen of a pixel of the map (1 when not zoomed).
+     */
+    public double getZoom(){
+        return zoom(zoomLevel);
+    }
+    
+    private static double zoom(int level){
+        return Math.pow(2, level / (double)ZOOM_STEPS);
+    }
+    
+    /**
+     * Zooms in or out, keeping the point of the map under the mouse in place.
+     * @param levels The number of zoom levels to zoom in (negative to zoom out).
+     * @param x X-coordinate of the mouse on the panel.
+     * @param y Y-coordinate of the mouse on the panel.
+     */
+    public void zoom(int levels, int x, int y){
+        int level = Math.max(minZoomLevel(), Math.min(MAX_ZOOM_LEVEL, zoomLevel + levels));
+        double f = zoom(level) / getZoom();
+        setView(level, (int)Math.round((viewX + x) * f) - x, (int)Math.round((viewY + y) * f) - y);
+    }
+    
+    /**
+     * Moves the map.
+     * @param dx Pixels to move the map to the right.
+     * @param dy Pixels to move the map down.
+     */
+    public void pan(int dx, int dy){
+        setView(zoomLevel, viewX - dx, viewY - dy);
+    }
+    
+    /**
+     * Shows the map as it is without zoom.
+     */
+    public void resetView(){
+        setView(0, 0, 0);
+    }
+    
+    private void setView(int level, int x, int y){
+        //Keep a part of the map on the panel
+        Rectangle world = worldBounds();
+        double zoom = zoom(level);
+        x = Math.max((int)Math.floor(world.x * zoom) - width + VIEW_MARGIN,
+                     Math.min((int)Math.ceil(world.getMaxX() * zoom) - VIEW_MARGIN, x));
+        y = Math.max((int)Math.floor(world.y * zoom) - height + VIEW_MARGIN,
+                     Math.min((int)Math.ceil(world.getMaxY() * zoom) - VIEW_MARGIN, y));
+        if(level == zoomLevel && x == viewX && y == viewY)
+            return;
+        zoomLevel = level;
+        viewX = x;
+        viewY = y;
+        
+        //Everything moves, so animate paints all of the panel again
+        playerPoints = new Point2D.Double[0];
+        repaint();
+    }
+    
+    /**
+     * Gets the part of the world with something to show: the background image and the positions of the cities.
+     */
+    private Rectangle worldBounds(){
+        Rectangle bounds = game.getCityGrid().getBounds();
+        if(map.getWidth() > 0)
+            bounds.add(new Rectangle(map.getWidth(), map.getHeight()));
+        return bounds;
+    }
+    
+    /**
+     * Gets the smallest zoom level, at which all of the world fits on the panel.
+     */
+    private int minZoomLevel(){
+        Rectangle world = worldBounds();
+        double fit = Math.min(width / (double)world.width, height / (double)world.height);
+        return Math.max(-8 * ZOOM_STEPS, Math.min(0, (int)Math.floor(ZOOM_STEPS * Math.log(fit) / Math.log(2))));
+    }
+    
+    /**
+     * Gets where a point of the map is on the panel.
+     */
+    private Point toScreen(Point p){
+        double zoom = getZoom();
+        return new Point((int)Math.round(p.x * zoom) - viewX, (int)Math.round(p.y * zoom) - viewY);
+    }
+    
+    /**
+     * Finds the city under a point of the panel (the closest one, if the circles of several cities are there).
+     * Cities hidden at the current zoom (see shownCities) are not found.
+     * @param x X-coordinate of the point on the panel.
+     * @param y Y-coordinate of the point on the panel.
+     * @return The City (or 'null' if there is no city at the point).
+     */
+    public City getCityAt(int x, int y){
+        RenderSnapshot snapshot = simulation.getSnapshot();
+        Network network = snapshot.getNetwork();
+        if(backgroundNetwork != network)
+            clearBackground(network, backgroundScale == 0 ? 1 : backgroundScale);
+        
+        double zoom = getZoom(), radius = MIN_CIRCLE_RADIUS + 5;
+        int n = game.getCityGrid().citiesIn((int)Math.floor((x - radius + viewX) / zoom),
+                                            (int)Math.floor((y - radius + viewY) / zoom),
+                                            (int)Math.ceil((x + radius + viewX) / zoom),
+                                            (int)Math.ceil((y + radius + viewY) / zoom), found);
+        BitSet shown = shownCities(network, zoomLevel);
+        City closest = null;
+        double best = radius * radius;
+        for(int i=0; i<n; i++){
+            if(!shown.get(found[i]))
+                continue;
+            City c = network.getCity(found[i]);
+            Point pos = toScreen(getPosition(c));
+            double d = (pos.x - x) * (double)(pos.x - x) + (pos.y - y) * (double)(pos.y - y);
+            if(d < best){
+                best = d;
+                closest = c;
+            }
+        }
+        return closest;
+    }
 
     @Override
     protected void paintComponent(Graphics g) {
@@ -721,21 +1117,41 @@ class WorldPanel extends JPanel {
                              RenderingHints.VALUE_ANTIALIAS_ON);
         g2d.setStroke(STROKE_DEFAULT);
         
-        //Draw white background
-        g2d.setColor(COLOR_BACKGROUND);
-        g2d.fillRect(0, 0, width, height);
-        
-        //Draw map
-        g2d.drawImage(img, 0, 0, null);
+        //Draw the game as it was after the last step (the next step may be taken while painting)
+        RenderSnapshot snapshot = simulation.getSnapshot();
+        Network network = snapshot.getNetwork();
+        
+        //When everything is painted, the players are drawn where they are now (otherwise where animate has put them)
+        Rectangle clip = g2d.getClipBounds();
+        boolean all = clip == null || clip.contains(0, 0, width, height);
+        if(all)
+            frameTime = System.nanoTime();
+        
+        //Draw the background, the map and the roads from the tiles on the screen (rendered when first shown)
+        double scale = g2d.getTransform().getScaleX();
+        if(backgroundNetwork != network || backgroundScale != scale)
+            clearBackground(network, scale);
+        Rectangle area = clip == null ? new Rectangle(width, height) : clip.intersection(new Rectangle(width, height));
+        for(int ty = Math.floorDiv(viewY + area.y, TILE_SIZE); ty <= Math.floorDiv(viewY + area.y + area.height - 1, TILE_SIZE); ty++){
+            for(int tx = Math.floorDiv(viewX + area.x, TILE_SIZE); tx <= Math.floorDiv(viewX + area.x + area.width - 1, TILE_SIZE); tx++){
+                long key = (long)zoomLevel << 48 ^ (tx & 0xFFFFFFL) << 24 ^ (ty & 0xFFFFFFL);
+                BufferedImage tile = tiles.get(key);
+                if(tile == null){
+                    tile = renderTile(network, tx, ty);
+                    tiles.put(key, tile);
+                }
+                g2d.drawImage(tile, tx * TILE_SIZE - viewX, ty * TILE_SIZE - viewY, TILE_SIZE, TILE_SIZE, null);
+            }
+        }
 
         //Time bar
         //Draw text
         g2d.setColor(COLOR_TEXT);
         g2d.setFont(FONT_BODY);
         g2d.drawString("Time left:", 15, 20);
-        g2d.drawString(""+game.getStepsLeft(), 150, 35);
+        g2d.drawString(""+snapshot.getStepsLeft(), 150, 35);
         //Draw bar
-        double ticks = game.getStepsLeft() / (double)game.getTotalSteps();
+        double ticks = snapshot.getStepsLeft() / (double)snapshot.getTotalSteps();
         g2d.setColor(COLOR_BAR_BACKGROUND);
         g2d.fillRect(15, 25, 130, 10);
         g2d.setColor(COLOR_BAR_TIME_FILL);
@@ -744,23 +1160,25 @@ class WorldPanel extends JPanel {
         g2d.drawRect(15, 25, 130, 10);
         
         //Hi-score
-        List<Player> players = new ArrayList<Player>(game.getPlayers());
-        Collections.sort(players, (p0, p1) -> { return (p1.getMoney() + (p1.getName().equals("GUI Player")?1000:0)) - (p0.getMoney() + (p0.getName().equals("GUI Player")?1000:0)); });
+        List<Integer> players = new ArrayList<Integer>();
+        for(int p=0; p<snapshot.getPlayerCount(); p++)
+            players.add(p);
+        Collections.sort(players, (p0, p1) -> { return (snapshot.getMoney(p1) + (snapshot.getName(p1).equals("GUI Player")?1000:0)) - (snapshot.getMoney(p0) + (snapshot.getName(p0).equals("GUI Player")?1000:0)); });
         int i=0;
-        for(Player p : players){
-            if(!isEnabled(p))
+        for(int p : players){
+            if(!snapshot.isEnabled(p))
                 continue;
             int y = 75+33*i++;
             //Draw text
             g2d.setColor(COLOR_TEXT);
             g2d.setFont(FONT_BODY);
-            g2d.drawString(p.getName()+":", 15, y-5);
-            g2d.drawString(p.getMoney()+" €", 150, y+10);
+            g2d.drawString(snapshot.getName(p)+":", 15, y-5);
+            g2d.drawString(snapshot.getMoney(p)+" €", 150, y+10);
             //Draw bar
-            double money = p.getMoney() / 1400.0;
+            double money = snapshot.getMoney(p) / 1400.0;
             g2d.setColor(COLOR_BAR_BACKGROUND);
             g2d.fillRect(15, y, 130, 10);
-            g2d.setColor(p.getColor());
+            g2d.setColor(snapshot.getColor(p));
             g2d.fillRect(15, y, (int)(130 * money), 10);
             g2d.setColor(COLOR_BAR_OUTLINE);
             g2d.drawRect(15, y, 130, 10);
@@ -791,94 +1209,221 @@ class WorldPanel extends JPanel {
             g2d.setFont(FONT_SC);
             g2d.drawString(GUI.hover.getCountry().getName().toUpperCase(), 350, 470);
             g2d.setFont(FONT_BODY);
-            g2d.drawString(GUI.hover.getValue()+" €", 350, 486);
+            g2d.drawString(snapshot.getValue(network.indexOf(GUI.hover))+" €", 350, 486);
             g2d.setFont(FONT_HEADER);
             g2d.drawString(GUI.hover.getName(), 350, 458);
         }
         g2d.setStroke(STROKE_THICK);
-        for(Country country : game.getCountries()){
-            //First draw all roads
-            for(City city : country.getCities()){
-                for(Road road : country.getRoads(city)){
-                    drawRoad(g2d, road);
-                }
-            }
-        }
-
-        for(Country country : game.getCountries()){
-            //Then draw all cities
-            for(City city : country.getCities()){
-                drawCity(g2d, city);
-            }
+        //Then draw the shown cities where they are painted (in the order of the Network, i.e. by country)
+        double zoom = getZoom();
+        int margin = MIN_CIRCLE_RADIUS + 4;
+        int n = game.getCityGrid().citiesIn((int)Math.floor((area.x - margin + viewX) / zoom),
+                                            (int)Math.floor((area.y - margin + viewY) / zoom),
+                                            (int)Math.ceil((area.getMaxX() + margin + viewX) / zoom),
+                                            (int)Math.ceil((area.getMaxY() + margin + viewY) / zoom), found);
+        BitSet shown = shownCities(network, zoomLevel);
+        for(int k=0; k<n; k++){
+            int c = found[k];
+            if(shown.get(c))
+                drawCity(g2d, network.getCity(c), snapshot.getValue(c));
         }
 
         g2d.setStroke(STROKE_DEFAULT);
         //Draw all players
-        for(Player player : game.getPlayers()){
-            drawPlayer(g2d, player, true);
+        if(all)
+            playerPoints = new Point2D.Double[snapshot.getPlayerCount()];
+        for(int p=0; p<snapshot.getPlayerCount(); p++){
+            if(!snapshot.isEnabled(p))
+                continue;
+            drawPlayer(g2d, snapshot, p);
+            if(all)
+                playerPoints[p] = playerPoint(snapshot, p);
         }
     }
         
     private Point getPosition(City c){
         return game.getPosition(c);
     }
+    
+    /**
+     * Forgets the tiles, roads and shown cities of another Network or scale of the screen.
+     * @param network The Network of the game.
+     * @param scale The scale of the screen (e.g. 2 on a HiDPI screen), so the images are as sharp as drawing directly.
+     */
+    private void clearBackground(Network network, double scale){
+        if(backgroundNetwork != network){
+            roads = new RoadGrid(game);
+            found = new int[Math.max(network.size(), roads.size())];
+            
+            //The most important cities have the most roads
+            Integer[] order = new Integer[network.size()];
+            for(int c=0; c<order.length; c++)
+                order[c] = c;
+            Arrays.sort(order, (c0, c1) -> (network.end(c1) - network.first(c1)) - (network.end(c0) - network.first(c0)));
+            byImportance = Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+            shownCities.clear();
+        }
+        tiles.clear();
+        for(BufferedImage[] sprites : citySprites)
+            Arrays.fill(sprites, null);
+        backgroundNetwork = network;
+        backgroundScale = scale;
+    }
+    
+    /**
+     * Draws a tile of the parts of the world which do not change during a game (the background, the map, the roads
+     * and their dots) at the current zoom into an image compatible with the screen, so paintComponent only has to
+     * copy it. Only the roads crossing the tile are drawn, leaving out the roads to hidden cities (see shownCities)
+     * and the dots of roads where they would be too close to be told apart.
+     * @param network The Network of the game.
+     * @param tx The column of the tile (the tile starts at TILE_SIZE * tx zoomed pixels).
+     * @param ty The row of the tile.
+     */
+    private BufferedImage renderTile(Network network, int tx, int ty){
+        int pixels = (int)Math.ceil(TILE_SIZE * backgroundScale);
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        BufferedImage tile = gc != null ? gc.createCompatibleImage(pixels, pixels)
+                                        : new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_RGB);
+        
+        Graphics2D g2d = tile.createGraphics();
+        g2d.scale(backgroundScale, backgroundScale);
+        g2d.translate(-tx * TILE_SIZE, -ty * TILE_SIZE);
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                             RenderingHints.VALUE_ANTIALIAS_ON);
+        
+        //Draw white background
+        g2d.setColor(COLOR_BACKGROUND);
+        g2d.fillRect(tx * TILE_SIZE, ty * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+        
+        //Draw the part of the map in the tile
+        double zoom = getZoom();
+        Rectangle area = new Rectangle((int)Math.floor(tx * TILE_SIZE / zoom), (int)Math.floor(ty * TILE_SIZE / zoom),
+                                       (int)Math.ceil(TILE_SIZE / zoom) + 1, (int)Math.ceil(TILE_SIZE / zoom) + 1);
+        Graphics2D mapGraphics = (Graphics2D)g2d.create();
+        mapGraphics.scale(zoom, zoom);
+        if(zoom != 1)
+            mapGraphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                                         RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        map.draw(mapGraphics, area, zoom);
+        mapGraphics.dispose();
+        
+        //Draw the roads crossing the tile (including the dots and strokes of roads just outside it)
+        g2d.setStroke(STROKE_THICK);
+        int margin = (int)Math.ceil((ROAD_CIRCLE_RADIUS + 2) / zoom);
+        int n = roads.roadsIn(area.x - margin, area.y - margin,
+                              area.x + area.width + margin, area.y + area.height + margin, found);
+        BitSet shown = shownCities(network, zoomLevel);
+        if(n > MAX_SMOOTH_ROADS)
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                                 RenderingHints.VALUE_ANTIALIAS_OFF);
+        for(int k=0; k<n; k++){
+            int from = roads.getFrom(found[k]), to = roads.getTo(found[k]);
+            if(shown.get(from) && shown.get(to))
+                drawRoad(g2d, network.getCity(from), network.getCity(to), roads.getLength(found[k]), zoom);
+        }
+        g2d.dispose();
+        return tile;
+    }
+    
+    /**
+     * Gets the cities shown at a zoom level: going from the most important city (the one with the most roads) to the
+     * least, a city is hidden if it would be closer than CITY_SPACING to a shown city on the screen.
+     * So when zoomed out, minor cities are hidden under the major ones around them.
+     */
+    private BitSet shownCities(Network network, int level){
+        BitSet shown = shownCities.get(level);
+        if(shown != null)
+            return shown;
+        
+        //Shown cities by cell of a grid whose cells are too small to show two cities (in pixels of the map)
+        double spacing = CITY_SPACING / zoom(level), cell = spacing / Math.sqrt(2);
+        Map<Long, Point> cells = new HashMap<Long, Point>();
+        shown = new BitSet(network.size());
+        for(int c : byImportance){
+            Point pos = getPosition(network.getCity(c));
+            if(pos == null)
+                continue;
+            long column = (long)Math.floor(pos.x / cell), row = (long)Math.floor(pos.y / cell);
+            boolean free = true;
+            for(long dy = -2; dy <= 2 && free; dy++){
+                for(long dx = -2; dx <= 2 && free; dx++){
+                    Point other = cells.get((column + dx) << 32 ^ (row + dy) & 0xFFFFFFFFL);
+                    free = other == null || other.distance(pos) >= spacing;
+                }
+            }
+            if(free){
+                shown.set(c);
+                cells.put(column << 32 ^ row & 0xFFFFFFFFL, pos);
+            }
+        }
+        shownCities.put(level, shown);
+        return shown;
+    }
 
-    private void drawRoad(Graphics2D g2d, Road r){
-        if(r.getFrom().getName().compareTo(r.getTo().getName()) > 0) return;
-        Point posFrom = getPosition(r.getFrom()),
-              posTo = getPosition(r.getTo());
+    private void drawRoad(Graphics2D g2d, City from, City to, int length, double zoom){
+        Point posFrom = getPosition(from),
+              posTo = getPosition(to);
+        int x0 = (int)Math.round(posFrom.x * zoom), y0 = (int)Math.round(posFrom.y * zoom),
+            x1 = (int)Math.round(posTo.x * zoom),   y1 = (int)Math.round(posTo.y * zoom);
         
         g2d.setColor(COLOR_ROAD);
-        if(!r.getFrom().getCountry().equals(r.getTo().getCountry()))
+        if(!from.getCountry().equals(to.getCountry()))
             g2d.setColor(COLOR_BORDER_ROAD);
-        g2d.drawLine(posFrom.x, posFrom.y, posTo.x, posTo.y);
+        g2d.drawLine(x0, y0, x1, y1);
         
-        for(int i=0; i<r.getLength(); i++)
-            drawRoadDot(g2d, r, i);
+        if(Math.hypot(x1 - x0, y1 - y0) < ROAD_DOT_SPACING * length)
+            return;
+        for(int i=0; i<length; i++)
+            drawRoadDot(g2d, x0, y0, x1, y1, i / (double)length);
+    }
+    
+    /**
+     * Gets where a player is drawn at 'frameTime' (on the panel).
+     * A travelling player moves one unit along its road per step, so between steps it is moved the part of a unit
+     * which corresponds to the time passed since the last step (a player in a city stays there until the next step).
+     */
+    private Point2D.Double playerPoint(RenderSnapshot snapshot, int p){
+        Point from = getPosition(snapshot.getFrom(p)),
+              to   = getPosition(snapshot.getTo(p));
+        
+        double travelled = snapshot.getTotal(p)-snapshot.getDistance(p);
+        if(snapshot.getDistance(p) > 0)
+            travelled += snapshot.getProgress(frameTime);
+        double f = snapshot.getTotal(p) == 0 ? 0 : travelled/snapshot.getTotal(p);
+        double zoom = getZoom();
+        return new Point2D.Double((from.x + f * (to.x - from.x)) * zoom - viewX,
+                                  (from.y + f * (to.y - from.y)) * zoom - viewY);
     }
     
-    private boolean isEnabled(Player p){
-        if(p.getClass() == RandomPlayer.class)
-            return game.getSettings().isActive(0);
-        if(p.getClass() == GreedyPlayer.class)
-            return game.getSettings().isActive(1);
-        if(p.getClass() == SmartPlayer.class)
-            return game.getSettings().isActive(2);
-        return true;
+    /**
+     * Gets the area a player covers when drawn at a point (including the stroke and anti-aliasing).
+     */
+    private Rectangle playerBounds(Point2D.Double pos){
+        int x = (int)Math.floor(pos.x) - PLAYER_RADIUS - 2,
+            y = (int)Math.floor(pos.y) - PLAYER_RADIUS - 2;
+        return new Rectangle(x, y, 2*PLAYER_RADIUS + 5, 2*PLAYER_RADIUS + 5);
     }
     
-    private void drawPlayer(Graphics2D g2d, Player p, boolean ai){
-        if(!isEnabled(p))
-            return;
-        
-        Point from = getPosition(p.getPosition().getFrom()),
-              to   = getPosition(p.getPosition().getTo());
-        
-        double f = (p.getPosition().getTotal()-p.getPosition().getDistance())/(double)p.getPosition().getTotal();
-        int x = from.x + (int)(f * (to.x - from.x)),
-            y = from.y + (int)(f * (to.y - from.y));
+    private void drawPlayer(Graphics2D g2d, RenderSnapshot snapshot, int p){
+        Point2D.Double pos = playerPoint(snapshot, p);
+        double x = pos.x, y = pos.y;
 
         Shape shape = new Ellipse2D.Double(x - PLAYER_RADIUS, y - PLAYER_RADIUS, 2*PLAYER_RADIUS, 2*PLAYER_RADIUS);
-        g2d.setColor(p.getColor());
+        g2d.setColor(snapshot.getColor(p));
         g2d.fill(shape);
         g2d.setColor(COLOR_PLAYER_STROKE);
         g2d.draw(shape);
     }
     
-    private void drawRoadDot(Graphics2D g2d, Road r, int i){
-        Point from = getPosition(r.getFrom()),
-              to = getPosition(r.getTo());
-        
-        double f = (i)/(double)r.getLength();
-        int x = from.x + (int)Math.round(f * (to.x - from.x)),
-            y = from.y + (int)Math.round(f * (to.y - from.y));
+    private void drawRoadDot(Graphics2D g2d, int x0, int y0, int x1, int y1, double f){
+        int x = x0 + (int)Math.round(f * (x1 - x0)),
+            y = y0 + (int)Math.round(f * (y1 - y0));
 
         int radius = ROAD_CIRCLE_RADIUS;
-        Ellipse2D.Double shape = new Ellipse2D.Double(x - radius, y - radius, 2*radius, 2*radius);
-        g2d.setColor(COLOR_ROAD);
-        if(!r.getFrom().getCountry().equals(r.getTo().getCountry()))
-            g2d.setColor(COLOR_BORDER_ROAD);
-        g2d.fill(shape);
+        if(!g2d.hitClip(x - radius - 1, y - radius - 1, 2*radius + 2, 2*radius + 2))
+            return;
+        dot.setFrame(x - radius, y - radius, 2*radius, 2*radius);
+        g2d.fill(dot);
     }
     
     private int makeLegal(int col){
@@ -907,18 +1452,47 @@ class WorldPanel extends JPanel {
         return new Color(makeLegal(r),makeLegal(g),makeLegal(b));
     }
     
-    private void drawCity(Graphics2D g2d, City c){
-        Point pos = getPosition(c);
+    private void drawCity(Graphics2D g2d, City c, int cityValue){
+        Point pos = toScreen(getPosition(c));
+        boolean hovered = c.equals(GUI.hover);
         int radius = MIN_CIRCLE_RADIUS;
-        if(c.equals(GUI.hover))
+        if(hovered)
             radius=radius + 2;
         
-        Ellipse2D.Double shape = new Ellipse2D.Double(pos.x - radius, pos.y - radius, 2*radius, 2*radius);
-        double val = Math.pow(c.getValue() / 250.0, 1.0);
+        //Cities with the same value look the same, so each look is only drawn once (and only where it is painted)
+        int value = Math.max(0, Math.min(cityValue, 250));
+        BufferedImage sprite = citySprites[hovered ? 1 : 0][value];
+        if(sprite == null){
+            sprite = renderCity(value, radius);
+            citySprites[hovered ? 1 : 0][value] = sprite;
+        }
+        int size = 2*radius + 4;
+        if(g2d.hitClip(pos.x - radius - 2, pos.y - radius - 2, size, size))
+            g2d.drawImage(sprite, pos.x - radius - 2, pos.y - radius - 2, size, size, null);
+    }
+    
+    /**
+     * Draws a city with a value (between 0 and 250) into a transparent image, with a margin of 2 pixels for the stroke.
+     */
+    private BufferedImage renderCity(int value, int radius){
+        int size = 2*radius + 4, pixels = (int)Math.ceil(size * backgroundScale);
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        BufferedImage sprite = gc != null ? gc.createCompatibleImage(pixels, pixels, Transparency.TRANSLUCENT)
+                                          : new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = sprite.createGraphics();
+        g2d.scale(backgroundScale, backgroundScale);
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                             RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setStroke(STROKE_THICK);
+        
+        Ellipse2D.Double shape = new Ellipse2D.Double(2, 2, 2*radius, 2*radius);
+        double val = Math.pow(value / 250.0, 1.0);
         Color col = cityColor(val);
         g2d.setColor(col);
         g2d.fill(shape);
         g2d.setColor(COLOR_CITY_STROKE);
         g2d.draw(shape);
+        g2d.dispose();
+        return sprite;
     }
 }
\ No newline at end of file
@@ -4,10 +4,9 @@ import java.nio.file.Files;
 import java.io.*;
 import java.nio.file.Paths;
 import java.util.ArrayList; 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
-import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -22,16 +21,24 @@ import java.util.Set;
 public class Game {
 
     private List<Country> countries;       // List of all countries in the game
-    private List<Player>  players;         // List of all players.
+    private Map<String, Country> countryIndex; // Countries by name
+    private Map<String, City> cityIndex;   // Cities by name (see getCity)
+    private PlayerList players;            // List of all players.
+    private Player[] schedule;             // Active players in the order they move (see schedule())
+    private int scheduleVersion;           // Version of 'players' the schedule was built from
+    private int scheduleActive;            // Active AI players (bit i = settings.isActive(i)) the schedule was built for
     private Player guiPlayer;              // Reference to the GUI Player
-    private Random random;                 // Reference to random generator
-    private boolean logging;               // Boolean telling whether the game is being logged
+    private StateRandom random;            // Reference to random generator
+    private GameRecorder recorder;         // Records the games played (or 'null' if they are not logged)
     private int totalSteps = 50;           // Total number of steps
     private int stepsLeft = totalSteps;    // Steps left
     private int seed;                      // Seed of this Game instance (used for Random)
+    private int initialSeed;               // Seed this Game was created with (e.g. the one in the network file)
     private Map<City, Point> guiPosition;  // Positions in the GUI for the various cities (in pixels)
     private Settings settings;             // Settings for this Game
     private boolean aborted=false;         // Boolean telling whethe this Game is forcefully aborted
+    private Network network;               // Frozen int-indexed road network (built when loading has finished)
+    private CityGrid cityGrid;             // Grid of the GUI positions of the cities (built when loading has finished)
 
     /**
      * Creates a new Game object with a random seed.
@@ -45,22 +52,31 @@ public class Game {
      * @param seed   The seed value to be used.
      */
     public Game(int seed) {
+        this(seed, null);
+    }
+
+    /**
+     * Creates a new Game object with a specified seed and Settings.
+     * Games created with their own Settings never touch 'settings.dat', so many of them can run side by side.
+     * @param seed       The seed value to be used.
+     * @param settings   The Settings of this Game (or 'null' to load them from 'settings.dat').
+     */
+    public Game(int seed, Settings settings) {
 
         // Create random
         this.seed = seed;
-        random = new Random(seed);
+        this.initialSeed = seed;
+        random = new StateRandom(seed);
 
         // Create collections
         countries = new ArrayList<>();
-        players   = new ArrayList<>();
+        countryIndex = new HashMap<>();
+        cityIndex = new HashMap<>();
+        players   = new PlayerList();
         guiPosition = new HashMap<>();
 
         // Try to load Settings from file, otherwise default to normal settings
-        try{
-            settings = new Settings(new String(Files.readAllBytes(Paths.get("settings.dat"))));
-        } catch(IOException|SettingsException e) {
-            settings = new Settings();
-        }
+        this.settings = settings != null ? settings : Settings.load("settings.dat");
 
     }
 
@@ -73,9 +89,10 @@ public class Game {
      *  - City: create a new city with name args[0], value args[1] and country equal to the last created country
      *    (creates a BorderCity if args[2] ~ "border" and a CapitalCity if args[2] ~ "capital").
      *  - Road: create a new road with length args[2] from a city with name ~ args[0] to a city with name ~args[1].
+     *  - Position: place the city with name args[0] at pixel (args[1], args[2]) in the GUI.
      * All cities must be created after the countries in which they are positioned.
      * Analogously roads must be created after the cities which they connect.
-     * Lines beginning with // are ignored. All tabs are replaced by spaces.
+     * Lines beginning with // are ignored. Tokens are separated by any number of spaces and tabs.
      * Any exception thrown is printed to System.out.
      * 
      * @param path   Path of the file to load.
@@ -83,43 +100,67 @@ public class Game {
      * @throws       NumberFormatException   If the values of cities are not ints.
      */
     public static final Game fromFile(String path) {
+        return fromFile(path, null);
+    }
+
+    /**
+     * Constructs a new Game object from a file, using the given Settings (see fromFile(String)).
+     * If the file has been compiled with NetworkImage, and the image is up to date, the image is loaded instead.
+     * @param path       Path of the file to load.
+     * @param settings   The Settings of the Game (or 'null' to load them from 'settings.dat').
+     * @return           Game object (or 'null' if an error is detected).
+     */
+    public static final Game fromFile(String path, Settings settings) {
+        Game game = NetworkImage.read(path, settings);
+        if(game != null) {
+            return game;
+        }
+        try(InputStream in = new FileInputStream(new File(path))) {
+            return load(in, settings);
+        } catch(IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Constructs a new Game object from a stream in the format described in fromFile(String).
+     * @param stream     The stream to read (it is not closed).
+     * @param settings   The Settings of the Game (or 'null' to load them from 'settings.dat').
+     * @return           Game object (or 'null' if an error is detected).
+     */
+    public static final Game load(InputStream stream, Settings settings) {
         Game game = null;
         try {
             String country = null;
-            BufferedReader in = new BufferedReader(
-                    new InputStreamReader(
-                        new FileInputStream(new File(path))));
+            LineTokenizer in = new LineTokenizer(stream);
 
-            String line;
-
-            while ((line = in.readLine()) != null) {
-                while(line.contains("  ") || line.contains("\t")) {
-                    line = line.replace("\t"," ").replace("  ", " ");
-                }
-                String[] args = line.split(" ");
-                if(args[0].startsWith("// ") || args[0].trim().isEmpty()) {
+            while (in.nextLine()) {
+                if(!in.hasToken() || in.startsWith("//")) {
                     continue;
                 }
-                switch(args[0].toLowerCase()) {
-                    case "game": game = new Game(Integer.parseInt(args[1])); break;
-                    case "country": game.addCountry(new Country(args[1])); country = args[1]; break;
-                    case "city": game.addCity(args[1], Integer.parseInt(args[2]), country); break;
-                    case "road": game.addRoads(args[1], args[2], Integer.parseInt(args[3])); break;
-                    case "position": game.putPosition(game.getCity(args[1].trim()),
-                        new Point(Integer.parseInt(args[2]), Integer.parseInt(args[3]))); break;
-                    case "//":break;
-                    case "background":break;
-                    default: System.out.println("unknown: "+args[0]); break;
+                if(in.accept("game")) {
+                    game = new Game(in.intToken(), settings);
+                } else if(in.accept("country")) {
+                    country = in.token();
+                    game.addCountry(new Country(country));
+                } else if(in.accept("city")) {
+                    String name = in.token();
+                    game.addCity(name, in.intToken(), country);
+                } else if(in.accept("road")) {
+                    String a = in.token(), b = in.token();
+                    game.addRoads(a, b, in.intToken());
+                } else if(in.accept("position")) {
+                    City city = game.getCity(in.token());
+                    int x = in.intToken();
+                    game.putPosition(city, new Point(x, in.intToken()));
+                } else if(!in.accept("background")) {
+                    System.out.println("unknown: "+in.token());
                 }
             }
 
             if(game != null) {
-                game.getPlayers().add(new SmartPlayer(game.getRandomStartingPosition()));
-                game.getPlayers().add(new GreedyPlayer(game.getRandomStartingPosition()));
-                game.getPlayers().add(new RandomPlayer(game.getRandomStartingPosition()));
-                Player p = new Player(game.getRandomStartingPosition());
-                game.setGUIPlayer(p);
-                game.reset();
+                game.finishLoading(Network.of(game));
             }
         } catch(IOException e) {
             e.printStackTrace();
@@ -128,10 +169,29 @@ public class Game {
         }
     }
 
+    /**
+     * Completes a Game whose countries, cities, roads and positions have been added (by load or NetworkImage):
+     * installs its Network, creates the players and resets the Game.
+     * @param network   The Network of all cities in this Game.
+     */
+    void finishLoading(Network network) {
+        this.network = network;
+        cityGrid = new CityGrid(this);
+        getPlayers().add(new SmartPlayer(getRandomStartingPosition()));
+        getPlayers().add(new GreedyPlayer(getRandomStartingPosition()));
+        getPlayers().add(new RandomPlayer(getRandomStartingPosition()));
+        Player p = new Player(getRandomStartingPosition());
+        setGUIPlayer(p);
+        reset();
+    }
+
     /**
      * Aborts the current game.
      */
     public void abort() {
+        if(recorder != null && ongoing()) {
+            recorder.abort(this);
+        }
         aborted = true;
     }
 
@@ -151,6 +211,97 @@ public class Game {
         return random;
     }
 
+    /**
+     * Gets the current state of this Game (see saveState(GameState)).
+     * @return   A new GameState.
+     */
+    public GameState saveState() {
+        GameState state = new GameState();
+        saveState(state);
+        return state;
+    }
+
+    /**
+     * Saves the mutable state of this Game: the steps left, the state of the Random generator, the value of every city,
+     * and the positions, money (and other state, see Player.saveState) of every player.
+     * Restoring it later continues the game exactly as it would have continued from now, so a GameState can be used
+     * to try out moves (e.g. by a lookahead search) and go back: save once, then step and restore as often as needed.
+     * The players, the network and the Settings are not part of the state.
+     * Saving into a GameState which has been used before does not allocate.
+     * @param state   The GameState to save into (its contents are replaced).
+     */
+    public void saveState(GameState state) {
+        Network network = getNetwork();
+        state.clear();
+        state.putInt(stepsLeft);
+        state.putInt(totalSteps);
+        state.putInt(aborted ? 1 : 0);
+        state.putInt(seed);
+        state.putLong(random.getState());
+        state.putInt(network.size());
+        for(int i = 0; i < network.size(); i++) {
+            state.putInt(network.getCity(i).getValue());
+        }
+        state.putInt(players.size());
+        for(Player p : players) {
+            p.saveState(state, network);
+        }
+    }
+
+    /**
+     * Restores a state saved by saveState.
+     * The cities and players of this Game are updated in place, so restoring takes a few microseconds and does not
+     * allocate (unless a player gets a pending position it did not have).
+     * The GameRecorder (if any) is not told, so a recorded Game should not be restored (see setRecorder).
+     * @param state   The GameState.
+     * @throws IllegalArgumentException   If the state was saved from a Game with another network or other players
+     *                                    (then this Game is not changed).
+     */
+    public void restoreState(GameState state) {
+        Network network = getNetwork();
+        if(state.size() < 7 || state.get(6) != network.size()) {
+            throw new IllegalArgumentException("The state is of a Game with another network");
+        }
+        if(state.size() < 8 + network.size() || state.get(7 + network.size()) != players.size()) {
+            throw new IllegalArgumentException("The state is of a Game with other players");
+        }
+        state.rewind();
+        int steps = state.getInt(), total = state.getInt();
+        boolean abort = state.getInt() != 0;
+        int stateSeed = state.getInt();
+        long randomState = state.getLong();
+        state.getInt();
+        for(int i = 0; i < network.size(); i++) {
+            City c = network.getCity(i);
+            c.changeValue(state.getInt() - c.getValue());
+        }
+        state.getInt();
+        for(Player p : players) {
+            p.restoreState(state, network);
+        }
+        stepsLeft = steps;
+        totalSteps = total;
+        aborted = abort;
+        seed = stateSeed;
+        random.setState(randomState);
+    }
+
+    /**
+     * Gets the seed of this Game (the one used by the last reset).
+     * @return   The seed value.
+     */
+    public int getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the seed this Game was created with (for a loaded Game, the seed in the network file).
+     * @return   The initial seed value.
+     */
+    public int getInitialSeed() {
+        return initialSeed;
+    }
+
     /**
      * Gets the Settings object.
      * @return   Reference to the Settings object of this Game.
@@ -159,6 +310,14 @@ public class Game {
         return settings;
     }
 
+    /**
+     * Changes the Settings of this Game (e.g. to replay a game with the Settings it was played with).
+     * @param settings   The new Settings.
+     */
+    public void setSettings(Settings settings) {
+        this.settings = settings;
+    }
+
     /**
      * Gets the loss in a robbery.
      * Returns a random integer in the interval [minRobbery, maxRobbery] determined by the Settings object.
@@ -174,6 +333,7 @@ public class Game {
      * @param p   Position (as a Point object).
      */
     public void putPosition(City c, Point p) {
+        cityGrid = null;
         guiPosition.put(c, p);
     }
 
@@ -186,6 +346,17 @@ public class Game {
         return guiPosition.get(c);
     }
 
+    /**
+     * Gets the CityGrid of the GUI positions of the cities (which is built again if a position has changed).
+     * @return   The CityGrid.
+     */
+    public CityGrid getCityGrid() {
+        if(cityGrid == null || cityGrid.getNetwork() != getNetwork()) {
+            cityGrid = new CityGrid(this);
+        }
+        return cityGrid;
+    }
+
     /**
      * Returns the position of a random City (by a choosing a random Country and then a random City within that Country).
      * @return   Position of a Random City.
@@ -202,11 +373,24 @@ public class Game {
      * @param contry  The name of the country.
      */    
     public void addCity(String name, int value, String country) {
-        for(Country c : countries) {
-            if(c.getName().equals(country.trim())) {
-                c.addCity(new City(name, value, c));
-                return;
-            }
+        network = null;
+        Country c = countryIndex.get(country.trim());
+        if(c != null) {
+            c.addCity(new City(name, value, c));
+        }
+    }
+
+    /**
+     * Adds a City to the name index of this Game (called by Country.addCity).
+     * If several countries have a city with the same name, the one in the first country (by name) is kept,
+     * just like a linear search through getCountries() would find it.
+     * @param city   The City to index.
+     */
+    public void indexCity(City city) {
+        network = null;
+        City old = cityIndex.get(city.getName());
+        if(old == null || old.getCountry().getName().compareTo(city.getCountry().getName()) > 0) {
+            cityIndex.put(city.getName(), city);
         }
     }
 
@@ -215,8 +399,20 @@ public class Game {
      * Assigns random positions to all players.
      */
     public void reset() {
-        seed = random.nextInt(Integer.MAX_VALUE);
-        random = new Random(seed);
+        reset(random.nextInt(Integer.MAX_VALUE));
+    }
+
+    /**
+     * Resets this Game object with a specified seed (see reset()).
+     * Two games reset with the same seed (and the same settings) play out identically.
+     * @param seed   The seed value to be used.
+     */
+    public void reset(int seed) {
+        if(recorder != null) {
+            recorder.reset();
+        }
+        this.seed = seed;
+        random = new StateRandom(seed);
         stepsLeft = totalSteps;
         aborted = false;
 
@@ -266,9 +462,29 @@ public class Game {
      * @param c   Country to be added.
      */
     public void addCountry(Country c) {
-        countries.add(c);
+        network = null;
+        int i = countries.size();
+        while(i > 0 && countries.get(i - 1).getName().compareTo(c.getName()) > 0) {
+            i--;
+        }
+        countries.add(i, c);
+        countryIndex.putIfAbsent(c.getName(), c);
         c.setGame(this);
-        Collections.sort(countries, Comparator.comparing(k -> k.getName()));
+        for(City city : c.getCities()) {
+            indexCity(city);
+        }
+    }
+
+    /**
+     * Gets the frozen, int-indexed road network of this Game.
+     * It is built when the Game has been loaded, and rebuilt on demand if countries, cities or roads are added later.
+     * @return   The Network of all cities in this Game.
+     */
+    public Network getNetwork() {
+        if(network == null) {
+            network = Network.of(this);
+        }
+        return network;
     }
 
     /**
@@ -293,30 +509,22 @@ public class Game {
      * @return       City object with the speicified named (or 'null').
      */
     public City getCity(String name) {
-        City city = null;
-        for(Country c : countries) {
-            city = c.getCity(name);
-            if(city != null) {
-                return city;
-            }
-        }
-        return null;
+        return cityIndex.get(name);
     }
 
     /**
      * Advances this Game one step.
      * A step consists of moving all players one step on the road they are currently travelling, as well as updating money.
-     * If the step finishes the game (getStepsLeft()==1), the Log of this Game is saved to 'last.log'.
+     * If the step finishes the game (getStepsLeft()==1), the log of the GameRecorder (if any) is written.
      */
     public void step() {
         if(stepsLeft == 0 || aborted) {
             return;
         }
-        Collections.sort(players);
-        for(Player p : players) {
-            if(p.getClass()==RandomPlayer.class && !settings.isActive(0)) { continue; }
-            if(p.getClass()==GreedyPlayer.class && !settings.isActive(1)) { continue; }
-            if(p.getClass()==SmartPlayer.class && !settings.isActive(2))  { continue; }
+        if(recorder != null) {
+            recorder.step(this);
+        }
+        for(Player p : schedule()) {
             p.step();
             if(p.getMoney() < 0) {
                 p.reset();
@@ -324,6 +532,250 @@ public class Game {
         }
 
         stepsLeft--;
+        if(stepsLeft == 0 && recorder != null) {
+            recorder.end();
+        }
+    }
+
+    /**
+     * Advances this Game to the end, skipping the steps in which no player arrives (see fastForward(int)).
+     */
+    public void fastForward() {
+        fastForward(stepsLeft);
+    }
+
+    /**
+     * Advances this Game a number of steps, with exactly the same outcome as calling step() that many times.
+     * Between arrivals a travelling player only moves closer to its destination, so instead of stepping every player
+     * every step, the travelling players are kept in a queue ordered by the step in which they arrive. The Game jumps
+     * straight to that step, applies the moves skipped by the player in bulk, and steps only that player.
+     * Players in a city (which decide where to go every step) are kept in a list for the next step instead.
+     * Players with an event in the same step are stepped in the same order as by step().
+     * @param steps   The number of steps (at most getStepsLeft()).
+     */
+    public void fastForward(int steps) {
+        if(aborted) {
+            return;
+        }
+        int ticks = Math.max(0, Math.min(steps, stepsLeft));
+        int start = stepsLeft;
+        if(recorder != null && ticks > 0) {
+            recorder.step(this);
+        }
+        Player[] active = schedule();
+        int[] applied = new int[active.length];     // Number of steps applied to each player so far
+        int[] ready = new int[active.length];       // Players (in schedule order) with an event in step 'tick'
+        int[] next = new int[active.length];        // Players (in schedule order) with an event in step 'tick'+1
+        int readyCount = 0;
+        EventQueue events = new EventQueue(active.length);
+        for(int i = 0; i < active.length; i++) {
+            int event = nextEvent(active[i], 0);
+            if(event == 0 && ticks > 0) {
+                ready[readyCount++] = i;
+            } else if(event < ticks) {
+                events.add(event, i);
+            }
+        }
+
+        int tick = 0;
+        while(readyCount > 0 || !events.isEmpty()) {
+            if(readyCount == 0) {
+                tick = events.peekTick();
+            }
+            int nextCount = 0, r = 0;
+            while(true) {
+                int i;
+                if(!events.isEmpty() && events.peekTick() == tick
+                        && (r == readyCount || events.peekPlayer() < ready[r])) {
+                    i = events.poll();
+                } else if(r < readyCount) {
+                    i = ready[r++];
+                } else {
+                    break;
+                }
+                Player p = active[i];
+                p.getPosition().move(tick - applied[i]);
+                stepsLeft = start - tick;
+                p.step();
+                if(p.getMoney() < 0) {
+                    p.reset();
+                }
+                applied[i] = tick + 1;
+                int event = nextEvent(p, tick + 1);
+                if(event == tick + 1 && event < ticks) {
+                    next[nextCount++] = i;
+                } else if(event < ticks) {
+                    events.add(event, i);
+                }
+            }
+            int[] swap = ready;
+            ready = next;
+            next = swap;
+            readyCount = nextCount;
+            tick++;
+        }
+
+        for(int i = 0; i < active.length; i++) {
+            active[i].getPosition().move(ticks - applied[i]);
+        }
+        stepsLeft = start - ticks;
+        if(stepsLeft == 0 && ticks > 0 && recorder != null) {
+            recorder.end();
+        }
+    }
+
+    /**
+     * Finds the next step in which stepping a player does more than moving it one step closer to its destination.
+     * @param p      The player.
+     * @param tick   The step the player will be stepped in next.
+     * @return       The step of the player's next event (or Integer.MAX_VALUE if it has none).
+     */
+    private static int nextEvent(Player p, int tick) {
+        int distance = p.getPosition().getDistance();
+        if(distance > 0) {
+            return tick + distance - 1;     // Arrives in the step which moves it the last unit
+        }
+        // Computer players decide where to go in every step they are in a city; the GUI Player waits for clicks
+        return p.getClass() == Player.class ? Integer.MAX_VALUE : tick;
+    }
+
+    /**
+     * A priority queue of (step, player) events, ordered by step and then by the player's place in the schedule.
+     */
+    private static class EventQueue {
+
+        private long[] heap;    // Binary heap of events (the step in the high half, the player in the low half)
+        private int size;
+
+        EventQueue(int capacity) {
+            heap = new long[Math.max(1, capacity)];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /** The step of the first event */
+        int peekTick() {
+            return (int) (heap[0] >>> 32);
+        }
+
+        /** The player of the first event */
+        int peekPlayer() {
+            return (int) heap[0];
+        }
+
+        void add(int tick, int player) {
+            if(size == heap.length) {
+                heap = Arrays.copyOf(heap, 2 * size);
+            }
+            long event = ((long) tick << 32) | player;
+            int k = size++;
+            while(k > 0 && heap[(k - 1) / 2] > event) {
+                heap[k] = heap[(k - 1) / 2];
+                k = (k - 1) / 2;
+            }
+            heap[k] = event;
+        }
+
+        /** Removes the first event, and returns its player */
+        int poll() {
+            long first = heap[0], last = heap[--size];
+            int k = 0;
+            while(2 * k + 1 < size) {
+                int child = 2 * k + 1;
+                if(child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if(heap[child] >= last) {
+                    break;
+                }
+                heap[k] = heap[child];
+                k = child;
+            }
+            heap[k] = last;
+            return (int) first;
+        }
+    }
+
+    /**
+     * Gets the players which take part in the next step, sorted by name (the order in which they move).
+     * The schedule is only rebuilt when the list of players, or the active players in the Settings, have changed.
+     * @return   The active players.
+     */
+    private Player[] schedule() {
+        int active = (settings.isActive(0) ? 1 : 0) | (settings.isActive(1) ? 2 : 0) | (settings.isActive(2) ? 4 : 0);
+        if(schedule == null || players.version() != scheduleVersion || active != scheduleActive) {
+            Collections.sort(players);
+            List<Player> list = new ArrayList<>();
+            for(Player p : players) {
+                if(p.getClass()==RandomPlayer.class && !settings.isActive(0)) { continue; }
+                if(p.getClass()==GreedyPlayer.class && !settings.isActive(1)) { continue; }
+                if(p.getClass()==SmartPlayer.class && !settings.isActive(2))  { continue; }
+                list.add(p);
+            }
+            schedule = list.toArray(new Player[0]);
+            scheduleVersion = players.version();
+            scheduleActive = active;
+        }
+        return schedule;
+    }
+
+    /**
+     * A Random generator whose state can be saved and restored.
+     * It computes exactly the same numbers as java.util.Random (with the same linear congruential generator),
+     * but keeps the 48-bit state in a field of its own.
+     */
+    private static class StateRandom extends Random {
+
+        private static final long serialVersionUID = 1L;
+        private static final long MULTIPLIER = 0x5DEECE66DL, ADDEND = 0xBL, MASK = (1L << 48) - 1;
+
+        private long state;
+
+        StateRandom(long seed) {
+            super(seed);
+        }
+
+        @Override
+        public synchronized void setSeed(long seed) {
+            state = (seed ^ MULTIPLIER) & MASK;
+        }
+
+        @Override
+        protected int next(int bits) {
+            state = (state * MULTIPLIER + ADDEND) & MASK;
+            return (int) (state >>> (48 - bits));
+        }
+
+        long getState() {
+            return state;
+        }
+
+        void setState(long state) {
+            this.state = state & MASK;
+        }
+    }
+
+    /**
+     * The list of players, which counts its changes so the schedule of step() knows when to be rebuilt.
+     */
+    private static class PlayerList extends ArrayList<Player> {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Gets a number which changes whenever a player is added, removed or replaced, or the list is sorted.
+         */
+        int version() {
+            return modCount;
+        }
+
+        @Override
+        public Player set(int index, Player p) {
+            modCount++;
+            return super.set(index, p);
+        }
     }
 
     /**
@@ -341,9 +793,42 @@ public class Game {
      * @param c The city to click.
      */
     public void clickCity(City c) {
+        if(recorder != null) {
+            recorder.click(this, c);
+        }
         guiPlayer.travelTo(c);
     }
 
+    /**
+     * Turns the GUI Player around (travels towards the city it came from).
+     * Is used by the GUI when <space> is pressed.
+     */
+    public void turnAround() {
+        if(recorder != null) {
+            recorder.turnAround(this);
+        }
+        guiPlayer.turnAround();
+    }
+
+    /**
+     * Records the games played from now on: the current game if it has not started yet, otherwise from the next reset.
+     * @param recorder   The GameRecorder to use (or 'null' to stop recording).
+     */
+    public void setRecorder(GameRecorder recorder) {
+        this.recorder = recorder;
+        if(recorder != null && stepsLeft == totalSteps && !aborted) {
+            recorder.reset();
+        }
+    }
+
+    /**
+     * Gets the GameRecorder of this Game.
+     * @return   The GameRecorder (or 'null' if the games are not recorded).
+     */
+    public GameRecorder getRecorder() {
+        return recorder;
+    }
+
     /**
      * Adds roads between 'a' and 'b' (if they exist) with a given length.
      * Adds a road from a to b, as well as a road from b to a (it is a symmetrical operator).
@@ -363,7 +848,11 @@ public class Game {
      * @param length  Length of the road to construct.
      */
     public void addRoads(City a, City b, int length) {
-        countries.stream().forEach(c -> c.addRoads(a,b,length));
+        network = null;
+        a.getCountry().addRoads(a, b, length);
+        if(!b.getCountry().equals(a.getCountry())) {
+            b.getCountry().addRoads(a, b, length);
+        }
     }
 
     /**
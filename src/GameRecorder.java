@@ -0,0 +1,394 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Records games to a compact, append-only binary log: the seed, the number of steps and the Settings of every
+ * game, followed by the inputs of the GUI Player (clicked cities, turning around and aborting).
+ * Since a game only depends on its seed, its Settings and these inputs, the log is enough to play the game again.
+ * Every few steps (see setCheckpointInterval) the whole state of the game is recorded too, so GameReplay can jump to
+ * any step by restoring the checkpoint before it, instead of playing the game from the beginning.
+ * Checkpoints are skipped while the steps since the previous checkpoint took less than COST_RATIO times as long as
+ * making a checkpoint, so checkpoints never take more than about 1% of the time spent playing (in headless games
+ * with cheap steps, the checkpoints are simply further apart).
+ *
+ * The log starts with MAGIC and VERSION, followed by records. Every record starts with a varint whose three lowest bits
+ * are its type, and whose remaining bits are the number of steps since the previous record (of the same game):
+ *  - GAME (the other bits are 0): a new game, followed by the varints seed (zigzag), number of steps, number of cities
+ *    in the network, active AI players (bit i = Settings.isActive(i)), toll size, risk of robbery, minimum loss and
+ *    maximum loss.
+ *  - CLICK: the GUI Player clicked a city, followed by the zigzag varint of the difference between the network index
+ *    of the city (see Network.indexOf) and that of the previously clicked city (or 0 after a GAME or CHECKPOINT).
+ *  - TURN: the GUI Player turned around.
+ *  - ABORT: the game was aborted.
+ *  - CHECKPOINT: the state of the game (see Game.saveState), followed by the varint n and the n ints of the state
+ *    as zigzag varints.
+ *  - INDEX: the game has ended, followed by the varint n and, for each of the n checkpoints of the game, the varints
+ *    of its step and of its offset in the log, both as the difference from the previous checkpoint (or the GAME record).
+ *    The INDEX record is followed by a footer of FOOTER_SIZE bytes: the offset of the GAME record (8 bytes),
+ *    the offset of the INDEX record (8 bytes) and FOOTER_MAGIC (4 bytes), all big-endian.
+ * A record made before step k (where k=0 is the first step) is said to happen in step k. Checkpoints are made just
+ * before their step is taken, after the inputs of that step.
+ * Following the footers backwards from the end of the log finds every game and its checkpoints without reading
+ * the records. The log of a game which was not ended (e.g. if the program crashed) has no INDEX record.
+ *
+ * Records are encoded into a buffer, which is only written to the file when it is full, at the end of a game
+ * (at most once per second) and by flush() or close(), so recording does neither allocate nor make system calls
+ * while a game is played.
+ * If writing the file fails, recording stops for good: the game being recorded gets no INDEX record, and the log ends
+ * with the bytes which were written (so at most its last record is incomplete).
+ */
+public class GameRecorder implements Closeable {
+
+    /** The first four bytes of a log ("NTLG") */
+    public static final int MAGIC = 0x4E544C47;
+
+    /** The version of the format written */
+    public static final int VERSION = 2;
+
+    /** Record types (the three lowest bits of the first varint of a record) */
+    public static final int CLICK = 0, TURN = 1, ABORT = 2, GAME = 3, CHECKPOINT = 4, INDEX = 5;
+
+    /** The last four bytes of the footer of a game ("NTIX") */
+    public static final int FOOTER_MAGIC = 0x4E544958;
+
+    /** Size of the footer of a game (in bytes) */
+    public static final int FOOTER_SIZE = 20;
+
+    /** Default number of steps between checkpoints */
+    public static final int CHECKPOINT_INTERVAL = 16;
+
+    /** How many times as long as making a checkpoint the steps between checkpoints must take at least */
+    private static final long COST_RATIO = 100;
+
+    /** Least time between writes at the end of games (in nanoseconds), so short headless games are written together */
+    private static final long END_INTERVAL = 1000000000L;
+
+    /** Size of the buffer (in bytes) */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Longest record (in bytes), except for GAME, CHECKPOINT and INDEX records */
+    private static final int MAX_RECORD = 10;
+
+    /** States of the recorder */
+    private static final int IDLE = 0, WAITING = 1, RECORDING = 2;
+
+    private FileChannel channel;    // The log file
+    private byte[] buffer;          // Encoded records which have not been written to 'channel'
+    private ByteBuffer wrapper;     // 'buffer' as a ByteBuffer (for writing it to 'channel')
+    private int size;               // Number of bytes in 'buffer'
+    private long written;           // Number of bytes written to 'channel'
+    private long lastWrite;         // System.nanoTime() of the last write to 'channel'
+    private boolean failed;         // Whether a write to 'channel' failed (then nothing more is recorded)
+    private int interval = CHECKPOINT_INTERVAL;
+
+    private int state = IDLE;       // IDLE until a game is reset, WAITING until its first step or input
+    private int steps;              // Number of steps of the current game (its steps left when it started)
+    private int lastStep;           // Step of the previous record of the current game
+    private int lastCity;           // Network index of the previously clicked city of the current game
+    private long gameOffset;        // Offset of the GAME record of the current game
+    private GameState current;      // State of the current game at the last checkpoint
+    private long checkpointTime;    // System.nanoTime() when the last checkpoint was finished (or the game started)
+    private int checkpointStep;     // Step of the last checkpoint (or 0)
+    private int nextCheckpoint;     // Step in which the time since the last checkpoint is checked next
+    private long checkpointCost;    // How long the last checkpoint took (in nanoseconds)
+    private int checkpoints;        // Number of checkpoints of the current game
+    private int[] checkpointSteps = new int[16];
+    private long[] checkpointOffsets = new long[16];
+
+    /**
+     * Creates a new GameRecorder which writes a new log (replacing the file if it exists).
+     * @param path   Path of the log.
+     * @throws IOException   If the file could not be created.
+     */
+    public GameRecorder(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer = new byte[BUFFER_SIZE];
+        wrapper = ByteBuffer.wrap(buffer);
+        wrapper.putInt(MAGIC).put((byte) VERSION);
+        size = wrapper.position();
+        lastWrite = System.nanoTime() - END_INTERVAL;
+        current = new GameState();
+    }
+
+    /**
+     * Changes how often the state of a game is recorded (CHECKPOINT_INTERVAL by default).
+     * Frequent checkpoints make seeking faster, but make the log larger (a checkpoint has an int per city and
+     * about ten per player).
+     * @param interval   The number of steps between checkpoints (or 0 for no checkpoints).
+     */
+    public void setCheckpointInterval(int interval) {
+        this.interval = interval;
+    }
+
+    /**
+     * Called by Game.reset(): the records which follow belong to a new game.
+     * The GAME record is written just before the first input or step, so it has the Settings the game is played with.
+     */
+    void reset() {
+        if(state == RECORDING) {
+            finish();
+        }
+        state = failed ? IDLE : WAITING;
+    }
+
+    /**
+     * Called by Game.step() before each step (and by Game.fastForward(), which can make one checkpoint per call, in the step it starts from).
+     * @param g   The Game.
+     */
+    void step(Game g) {
+        if(state == WAITING) {
+            start(g);
+        } else if(state == RECORDING && interval > 0) {
+            int step = steps - g.getStepsLeft();
+            if(step >= nextCheckpoint) {
+                candidate(g, step);
+            }
+        }
+    }
+
+    /**
+     * Records that the GUI Player clicked a city.
+     * @param g   The Game.
+     * @param c   The City.
+     */
+    void click(Game g, City c) {
+        int city = g.getNetwork().indexOf(c);
+        if(city < 0 || !record(g, CLICK)) {
+            return;
+        }
+        putVarint(zigzag(city - lastCity));
+        lastCity = city;
+    }
+
+    /**
+     * Records that the GUI Player turned around.
+     * @param g   The Game.
+     */
+    void turnAround(Game g) {
+        record(g, TURN);
+    }
+
+    /**
+     * Records that the game was aborted (which ends the game, see end()).
+     * @param g   The Game.
+     */
+    void abort(Game g) {
+        if(record(g, ABORT)) {
+            end();
+        }
+    }
+
+    /**
+     * Called by Game.step() when the last step of a game has been taken: writes the INDEX record, and writes the log
+     * unless it was written less than END_INTERVAL ago (then it is written when the buffer is full, or by flush()).
+     */
+    void end() {
+        if(state == RECORDING) {
+            finish();
+            state = IDLE;
+        }
+        if(System.nanoTime() - lastWrite >= END_INTERVAL) {
+            drain();
+        }
+    }
+
+    /**
+     * Writes the buffered records to the file.
+     * The game being recorded gets its INDEX record when it ends (or by close()).
+     * If the file could not be written, recording stops, and the records are dropped.
+     * @throws IOException   If the file could not be written.
+     */
+    public void flush() throws IOException {
+        wrapper.limit(failed ? 0 : size).position(0);
+        lastWrite = System.nanoTime();
+        try {
+            while(wrapper.hasRemaining()) {
+                written += channel.write(wrapper);
+            }
+        } catch(IOException e) {
+            failed = true;
+            state = IDLE;
+            throw e;
+        } finally {
+            size = 0;
+            wrapper.clear();
+        }
+    }
+
+    /**
+     * Ends the game being recorded (if any), writes the buffered records, and closes the file.
+     * @throws IOException   If the file could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if(state == RECORDING) {
+            finish();
+        }
+        state = IDLE;
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Starts the record of an input: writes the GAME record if needed, and the type and step of the record.
+     * @return   True if the input is recorded (false if no game is being recorded).
+     */
+    private boolean record(Game g, int type) {
+        if(state == WAITING) {
+            start(g);
+        }
+        if(state != RECORDING) {
+            return false;
+        }
+        int step = steps - g.getStepsLeft();
+        reserve(MAX_RECORD);
+        putVarint((step - lastStep) << 3 | type);
+        lastStep = step;
+        return true;
+    }
+
+    /**
+     * Writes the GAME record of a game.
+     */
+    private void start(Game g) {
+        Settings s = g.getSettings();
+        int active = 0;
+        for(int i = 0; i < 3; i++) {
+            if(s.isActive(i)) {
+                active |= 1 << i;
+            }
+        }
+        steps = g.getStepsLeft();
+        reserve(9 * 5);
+        gameOffset = written + size;
+        putVarint(GAME);
+        putVarint(zigzag(g.getSeed()));
+        putVarint(steps);
+        putVarint(g.getNetwork().size());
+        putVarint(active);
+        putVarint(s.getTollToBePaid());
+        putVarint(s.getRisk());
+        putVarint(s.getMinRobbery());
+        putVarint(s.getMaxRobbery());
+        state = failed ? IDLE : RECORDING;
+        lastStep = 0;
+        lastCity = 0;
+        checkpoints = 0;
+        checkpointTime = System.nanoTime();
+        checkpointStep = 0;
+        nextCheckpoint = interval;
+    }
+
+    /**
+     * Makes a checkpoint if the steps since the last one took long enough (see COST_RATIO). Otherwise estimates
+     * from the time per step how many more steps it takes, so the clock is only read a few times between checkpoints.
+     */
+    private void candidate(Game g, int step) {
+        long elapsed = System.nanoTime() - checkpointTime;
+        long needed = COST_RATIO * checkpointCost;
+        if(elapsed >= needed) {
+            checkpoint(g, step);
+            nextCheckpoint = step + interval;
+            return;
+        }
+        long perStep = Math.max(1, elapsed / (step - checkpointStep));
+        long more = Math.min((needed - elapsed) / perStep, steps);
+        nextCheckpoint = step + (int) Math.max(interval, (more + interval - 1) / interval * interval);
+    }
+
+    /**
+     * Writes a CHECKPOINT record.
+     */
+    private void checkpoint(Game g, int step) {
+        long time = System.nanoTime();
+        g.saveState(current);
+        reserve(2 * 5);
+        if(checkpoints == checkpointSteps.length) {
+            checkpointSteps = Arrays.copyOf(checkpointSteps, 2 * checkpoints);
+            checkpointOffsets = Arrays.copyOf(checkpointOffsets, 2 * checkpoints);
+        }
+        checkpointSteps[checkpoints] = step;
+        checkpointOffsets[checkpoints++] = written + size;
+        putVarint((step - lastStep) << 3 | CHECKPOINT);
+        putVarint(current.size());
+        for(int i = 0; i < current.size(); i++) {
+            reserve(5);
+            putVarint(zigzag(current.get(i)));
+        }
+        lastStep = step;
+        lastCity = 0;
+        checkpointStep = step;
+        checkpointTime = System.nanoTime();
+        checkpointCost = checkpointTime - time;
+    }
+
+    /**
+     * Writes the INDEX record and the footer of the current game.
+     */
+    private void finish() {
+        reserve(3 * 5);
+        long indexOffset = written + size;
+        putVarint(INDEX);
+        putVarint(checkpoints);
+        int step = 0;
+        long offset = gameOffset;
+        for(int k = 0; k < checkpoints; k++) {
+            reserve(2 * 5);
+            putVarint(checkpointSteps[k] - step);
+            putVarint((int) (checkpointOffsets[k] - offset));
+            step = checkpointSteps[k];
+            offset = checkpointOffsets[k];
+        }
+        reserve(FOOTER_SIZE);
+        wrapper.position(size);
+        wrapper.putLong(gameOffset).putLong(indexOffset).putInt(FOOTER_MAGIC);
+        size = wrapper.position();
+    }
+
+    /**
+     * Makes sure the buffer has room for a number of bytes (by writing it to the file if needed).
+     */
+    private void reserve(int bytes) {
+        if(buffer.length - size < bytes) {
+            drain();
+        }
+    }
+
+    /**
+     * Writes the buffered records to the file (if that fails, recording stops, but the game goes on).
+     */
+    private void drain() {
+        try {
+            flush();
+        } catch(IOException e) {
+            System.out.println("Unable to write the log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes an int as a varint: 7 bits per byte (lowest first), and the high bit set on all but the last byte.
+     */
+    private void putVarint(int value) {
+        while((value & ~0x7F) != 0) {
+            buffer[size++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+    }
+
+    /**
+     * Maps ints of small magnitude to small non-negative ints (0, -1, 1, -2, ... to 0, 1, 2, 3, ...).
+     */
+    static int zigzag(int value) {
+        return value << 1 ^ value >> 31;
+    }
+}
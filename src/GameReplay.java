@@ -0,0 +1,397 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Plays the games of a log written by GameRecorder again, in a Game loaded from the same network.
+ * A replay can jump to any step (see seek): it restores the last checkpoint before the step and only plays the steps
+ * after it, so seeking takes at most the checkpoint interval of steps (instead of playing from the first step).
+ * The games and their checkpoints are found from the footers at the end of the log. If the log does not end with
+ * a footer (e.g. if the program recording it crashed), the records are scanned instead.
+ *
+ * Usage: java GameReplay [log] [network] [game] [step]
+ * which prints the money of every player after 'step' steps of game number 'game' (counting from 0) of the log.
+ * The defaults are last.log, network.dat, the last game in the log and the end of the game.
+ */
+public class GameReplay {
+
+    /** 'nextType' when there are no more records of the current game */
+    private static final int END = -1;
+
+    private Game game;                  // The Game the games are played in
+    private ByteBuffer log;             // Contents of the log
+    private List<Entry> entries;        // The games of the log
+
+    private Entry entry;                // The current game (or 'null' before start)
+    private int steps;                  // Number of steps of the current game
+    private int step;                   // Number of steps taken in the current game
+    private GameState state;            // State of the last checkpoint restored
+    private int lastStep, lastCity;     // Step of the last record read, and the last city clicked
+    private int nextType, nextStep;     // Type and step of the next record (not applied yet)
+    private int nextCity;               // City of the next record (if it is a CLICK)
+
+    /**
+     * A game in the log, and its checkpoints.
+     */
+    private static class Entry {
+        int offset;                     // Offset of the GAME record
+        int checkpoints;                // Number of checkpoints
+        int[] steps = new int[4];       // Step of each checkpoint
+        int[] offsets = new int[4];     // Offset of each CHECKPOINT record
+
+        Entry(int offset) {
+            this.offset = offset;
+        }
+
+        void add(int step, int offset) {
+            if(checkpoints == steps.length) {
+                steps = Arrays.copyOf(steps, 2 * checkpoints);
+                offsets = Arrays.copyOf(offsets, 2 * checkpoints);
+            }
+            steps[checkpoints] = step;
+            offsets[checkpoints++] = offset;
+        }
+    }
+
+    /**
+     * Opens a log for replaying in a Game.
+     * The GameRecorder of the Game (if any) is removed, so the replay is not recorded again.
+     * @param path   Path of the log.
+     * @param game   The Game (loaded from the network the log was recorded with).
+     * @throws IOException   If the file could not be read, or is not a log.
+     */
+    public GameReplay(Path path, Game game) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if(channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("The log is too large");
+            }
+            log = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if(log.limit() < 5 || log.getInt(0) != GameRecorder.MAGIC) {
+            throw new IOException(path + " is not a log");
+        }
+        if(log.get(4) != GameRecorder.VERSION) {
+            throw new IOException(path + " has version " + log.get(4) + " (expected " + GameRecorder.VERSION + ")");
+        }
+        entries = readFooters();
+        if(entries == null) {
+            entries = scan();
+        }
+        this.game = game;
+        game.setRecorder(null);
+        state = new GameState();
+    }
+
+    /**
+     * Gets the number of games in the log.
+     * @return   The number of games.
+     */
+    public int getGameCount() {
+        return entries.size();
+    }
+
+    /**
+     * Starts playing a game of the log: resets the Game with the seed, number of steps and Settings of the game.
+     * The Settings of the Game are replaced by a non-persistent copy with the recorded values.
+     * @param g   The number of the game (counting from 0).
+     * @throws IllegalArgumentException   If the game was recorded with another network.
+     */
+    public void start(int g) {
+        Entry e = entries.get(g);
+        log.position(e.offset);
+        readVarint();
+        int seed = unzigzag(readVarint());
+        int gameSteps = readVarint();
+        if(readVarint() != game.getNetwork().size()) {
+            throw new IllegalArgumentException("The game was recorded with another network");
+        }
+        int active = readVarint();
+        Settings settings = new Settings(game.getSettings());
+        settings.setPersistent(false);
+        for(int i = 0; i < 3; i++) {
+            settings.setActive(i, (active & 1 << i) != 0);
+        }
+        settings.setTollToBePaid(readVarint());
+        settings.setRisk(readVarint());
+        int minLoss = readVarint();
+        settings.setMinMaxRobbery(minLoss, readVarint());
+        game.setSettings(settings);
+        game.setTotalSteps(gameSteps);
+        game.reset(seed);
+
+        entry = e;
+        steps = gameSteps;
+        step = 0;
+        lastStep = 0;
+        lastCity = 0;
+        readNext();
+    }
+
+    /**
+     * Gets the number of steps of the current game.
+     * @return   The number of steps.
+     */
+    public int getSteps() {
+        return steps;
+    }
+
+    /**
+     * Gets the number of steps played of the current game.
+     * @return   The current step.
+     */
+    public int getStep() {
+        return step;
+    }
+
+    /**
+     * Plays the next step of the current game: applies the inputs recorded before it, and steps the Game.
+     * @return   True if a step was taken; false if the game has ended (or was aborted).
+     */
+    public boolean step() {
+        if(entry == null || step >= steps) {
+            return false;
+        }
+        applyInputs();
+        if(!game.ongoing()) {
+            return false;
+        }
+        game.step();
+        step++;
+        return true;
+    }
+
+    /**
+     * Jumps to a step of the current game: afterwards the Game is as it was when the step was about to be taken
+     * (with the inputs recorded before it applied), i.e. when 'step' steps had been taken.
+     * Restores the last checkpoint before the step (unless the current step is closer), and plays the steps after it.
+     * @param target   The step (between 0 and getSteps()).
+     */
+    public void seek(int target) {
+        target = Math.max(0, Math.min(target, steps));
+        int k = Arrays.binarySearch(entry.steps, 0, entry.checkpoints, target);
+        k = k >= 0 ? k : -k - 2;
+        int from = k >= 0 ? entry.steps[k] : 0;
+        if(target < step || from > step) {
+            if(k >= 0) {
+                restore(k);
+            } else {
+                start(entries.indexOf(entry));
+            }
+        }
+        while(step < target && step()) {
+            // Play the steps between the checkpoint and the target
+        }
+        if(step == target) {
+            applyInputs();
+        }
+    }
+
+    /**
+     * Restores a checkpoint of the current game.
+     */
+    private void restore(int k) {
+        log.position(entry.offsets[k]);
+        readVarint();
+        int n = readVarint();
+        state.clear();
+        for(int i = 0; i < n; i++) {
+            state.putInt(unzigzag(readVarint()));
+        }
+        game.restoreState(state);
+        step = entry.steps[k];
+        lastStep = step;
+        lastCity = 0;
+        readNext();
+    }
+
+    /**
+     * Applies the inputs recorded before the current step.
+     */
+    private void applyInputs() {
+        while(nextType != END && nextStep <= step) {
+            switch(nextType) {
+                case GameRecorder.CLICK:
+                    game.clickCity(game.getNetwork().getCity(nextCity));
+                    break;
+                case GameRecorder.TURN:
+                    game.turnAround();
+                    break;
+                case GameRecorder.ABORT:
+                    game.abort();
+                    break;
+            }
+            readNext();
+        }
+    }
+
+    /**
+     * Reads the next input of the current game (skipping checkpoints).
+     */
+    private void readNext() {
+        try {
+            while(log.hasRemaining()) {
+                int tag = readVarint();
+                nextType = tag & 7;
+                nextStep = lastStep + (tag >>> 3);
+                lastStep = nextStep;
+                if(nextType == GameRecorder.CHECKPOINT) {
+                    skipState();
+                    lastCity = 0;
+                    continue;
+                }
+                if(nextType == GameRecorder.CLICK) {
+                    nextCity = lastCity + unzigzag(readVarint());
+                    lastCity = nextCity;
+                }
+                if(nextType == GameRecorder.GAME || nextType == GameRecorder.INDEX) {
+                    break;
+                }
+                return;
+            }
+        } catch(BufferUnderflowException e) {
+            // The log ends with a partial record
+        }
+        nextType = END;
+    }
+
+    /**
+     * Finds the games from the footers at the end of the log.
+     * @return   The games (or 'null' if the log does not end with a valid footer).
+     */
+    private List<Entry> readFooters() {
+        List<Entry> list = new ArrayList<>();
+        int end = log.limit();
+        try {
+            while(end > 5) {
+                int footer = end - GameRecorder.FOOTER_SIZE;
+                if(footer < 5 || log.getInt(footer + 16) != GameRecorder.FOOTER_MAGIC) {
+                    return null;
+                }
+                long gameOffset = log.getLong(footer), indexOffset = log.getLong(footer + 8);
+                if(gameOffset < 5 || gameOffset >= indexOffset || indexOffset >= footer) {
+                    return null;
+                }
+                Entry e = new Entry((int) gameOffset);
+                log.position((int) indexOffset);
+                if(readVarint() != GameRecorder.INDEX) {
+                    return null;
+                }
+                int n = readVarint(), step = 0, offset = e.offset;
+                for(int k = 0; k < n; k++) {
+                    step += readVarint();
+                    offset += readVarint();
+                    e.add(step, offset);
+                }
+                list.add(e);
+                end = e.offset;
+            }
+        } catch(BufferUnderflowException | IndexOutOfBoundsException e) {
+            return null;
+        }
+        Collections.reverse(list);
+        return list;
+    }
+
+    /**
+     * Finds the games by reading all records of the log.
+     * @return   The games (the last one may be incomplete).
+     */
+    private List<Entry> scan() {
+        List<Entry> list = new ArrayList<>();
+        Entry e = null;
+        int at, step = 0;
+        log.position(5);
+        try {
+            while(log.hasRemaining()) {
+                at = log.position();
+                int tag = readVarint();
+                step += tag >>> 3;
+                switch(tag & 7) {
+                    case GameRecorder.GAME:
+                        e = new Entry(at);
+                        list.add(e);
+                        for(int i = 0; i < 8; i++) {
+                            readVarint();
+                        }
+                        step = 0;
+                        break;
+                    case GameRecorder.CLICK:
+                        readVarint();
+                        break;
+                    case GameRecorder.CHECKPOINT:
+                        skipState();
+                        if(e != null) {
+                            e.add(step, at);
+                        }
+                        break;
+                    case GameRecorder.INDEX:
+                        int n = readVarint();
+                        for(int i = 0; i < 2 * n; i++) {
+                            readVarint();
+                        }
+                        log.position(log.position() + GameRecorder.FOOTER_SIZE);
+                        e = null;
+                        break;
+                }
+            }
+        } catch(BufferUnderflowException | IllegalArgumentException ex) {
+            // The log ends with a partial record
+        }
+        return list;
+    }
+
+    private void skipState() {
+        int n = readVarint();
+        for(int i = 0; i < n; i++) {
+            readVarint();
+        }
+    }
+
+    private int readVarint() {
+        int value = 0;
+        for(int shift = 0; ; shift += 7) {
+            byte b = log.get();
+            value |= (b & 0x7F) << shift;
+            if(b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static int unzigzag(int value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        String path    = args.length > 0 ? args[0] : "last.log";
+        String network = args.length > 1 ? args[1] : "network.dat";
+        Game game = Game.fromFile(network);
+        if(game == null) {
+            System.out.println("Unable to load " + network);
+            return;
+        }
+        GameReplay replay = new GameReplay(Paths.get(path), game);
+        if(replay.getGameCount() == 0) {
+            System.out.println(path + " has no games");
+            return;
+        }
+        int g = args.length > 2 ? Integer.parseInt(args[2]) : replay.getGameCount() - 1;
+        replay.start(g);
+        int target = args.length > 3 ? Integer.parseInt(args[3]) : replay.getSteps();
+        replay.seek(target);
+        System.out.printf("Game %d of %d (seed %d), step %d of %d%n",
+                g, replay.getGameCount(), game.getSeed(), replay.getStep(), replay.getSteps());
+        for(Player p : game.getPlayers()) {
+            System.out.printf("%-14s %6d%n", p.getName(), p.getMoney());
+        }
+    }
+}
@@ -0,0 +1,180 @@
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Tests that a recorded game is replayed exactly by GameReplay, also when seeking between checkpoints,
+ * and that a log whose checkpoint does not fit the Game is rejected.
+ */
+public class GameReplayTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String network;                 // A network made by Generator
+    private Path log;                       // The log of the games played by setUp
+    private List<List<String>> played;      // played.get(g).get(k): the state of game g before step k was taken
+
+    /**
+     * Plays and records two games with random clicks and turns of the GUI Player, and saves the state of the Game
+     * before every step.
+     */
+    @Before
+    public void setUp() throws IOException
+    {
+        Generator generator = new Generator(5);
+        generator.setCities(80);
+        generator.setRoadLengths(2, 6);
+        StringWriter out = new StringWriter();
+        generator.write(out);
+        network = out.toString();
+
+        log = folder.newFile("games.log").toPath();
+        Game game = load();
+        GameRecorder recorder = new GameRecorder(log);
+        recorder.setCheckpointInterval(4);
+        game.setRecorder(recorder);
+        Random random = new Random(11);
+        played = new ArrayList<>();
+        for(int g = 0; g < 2; g++) {
+            game.reset(100 + g);
+            List<String> states = new ArrayList<>();
+            while(game.ongoing()) {
+                if(random.nextInt(3) == 0) {
+                    game.clickCity(game.getNetwork().getCity(random.nextInt(game.getNetwork().size())));
+                }
+                if(random.nextInt(7) == 0) {
+                    game.turnAround();
+                }
+                states.add(describe(game));
+                game.step();
+            }
+            states.add(describe(game));
+            played.add(states);
+        }
+        recorder.close();
+    }
+
+    /**
+     * Plays the games through, and seeks to random steps (backwards and forwards) in them.
+     */
+    @Test
+    public void seekMatchesLiveGame() throws IOException
+    {
+        Game game = load();
+        GameReplay replay = new GameReplay(log, game);
+        assertEquals(2, replay.getGameCount());
+        Random random = new Random(13);
+        for(int g = 0; g < 2; g++) {
+            List<String> states = played.get(g);
+            replay.start(g);
+            assertEquals(states.size() - 1, replay.getSteps());
+            for(int k = 0; k < states.size(); k++) {
+                replay.seek(k);
+                assertEquals("game " + g + ", step " + k, states.get(k), describe(game));
+            }
+            for(int t = 0; t < 40; t++) {
+                int k = random.nextInt(states.size());
+                replay.seek(k);
+                assertEquals("game " + g + ", seek to " + k, states.get(k), describe(game));
+            }
+        }
+    }
+
+    /**
+     * Changes the number of cities stored in the first checkpoint of the last game, and checks that seeking to it
+     * is rejected by Game.restoreState, without changing the Game.
+     */
+    @Test
+    public void corruptCheckpointIsRejected() throws IOException
+    {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(log));
+        int footer = bytes.limit() - GameRecorder.FOOTER_SIZE;
+        int gameOffset = (int) bytes.getLong(footer);
+        bytes.position((int) bytes.getLong(footer + 8));
+        assertEquals(GameRecorder.INDEX, readVarint(bytes));
+        assertTrue("the game has a checkpoint", readVarint(bytes) > 0);
+        int step = readVarint(bytes);
+        bytes.position(gameOffset + readVarint(bytes));
+
+        // The record type and the number of ints, then steps left, total steps, aborted, seed and the random state
+        for(int i = 0; i < 2 + 6; i++) {
+            readVarint(bytes);
+        }
+        int at = bytes.position(), cities = readVarint(bytes) >>> 1;
+        int length = bytes.position() - at;
+        bytes.position(at);
+        writeVarint(bytes, GameRecorder.zigzag(cities + 1));
+        assertEquals("the corrupt count has the same length", at + length, bytes.position());
+        Files.write(log, bytes.array());
+
+        Game game = load();
+        GameReplay replay = new GameReplay(log, game);
+        replay.start(1);
+        String before = describe(game);
+        try {
+            replay.seek(step);
+            fail("seeking to a corrupt checkpoint should fail");
+        } catch(IllegalArgumentException e) {
+            assertEquals(before, describe(game));
+        }
+    }
+
+    private Game load()
+    {
+        Settings settings = new Settings(new boolean[]{true, true, true}, 20, 20, 10, 50, 2);
+        settings.setPersistent(false);
+        Game game = Game.load(new ByteArrayInputStream(network.getBytes(StandardCharsets.UTF_8)), settings);
+        game.setTotalSteps(150);
+        return game;
+    }
+
+    /**
+     * Describes the steps left, the value of every city, and the money and positions of every player.
+     * (The whole GameState is not compared, since a SmartPlayer counts its plans over all games.)
+     */
+    private static String describe(Game game)
+    {
+        StringBuilder s = new StringBuilder(game.getStepsLeft() + " steps left, values");
+        Network network = game.getNetwork();
+        for(int i = 0; i < network.size(); i++) {
+            s.append(' ').append(network.getCity(i).getValue());
+        }
+        for(Player p : game.getPlayers()) {
+            s.append(", ").append(p.getName()).append(": ").append(p.getMoney()).append(" at ").append(p.getPosition());
+        }
+        return s.toString();
+    }
+
+    private static int readVarint(ByteBuffer bytes)
+    {
+        int value = 0;
+        for(int shift = 0; ; shift += 7) {
+            byte b = bytes.get();
+            value |= (b & 0x7F) << shift;
+            if(b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static void writeVarint(ByteBuffer bytes, int value)
+    {
+        while((value & ~0x7F) != 0) {
+            bytes.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        bytes.put((byte) value);
+    }
+}
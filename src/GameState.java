@@ -0,0 +1,122 @@
+import java.util.Arrays;
+
+/**
+ * The mutable state of a Game at some point, stored as a flat array of ints (see Game.saveState and Game.restoreState).
+ * Cities are stored as their index in the Network of the Game, so a GameState can only be restored into
+ * the Game it was saved from (or a Game loaded from the same network, with the same players).
+ * A GameState can be reused: saving into it overwrites its contents, and only allocates if the state has grown.
+ */
+public class GameState {
+
+    private int[] data = new int[64];   // The state
+    private int size;                   // Number of ints in 'data'
+    private int position;               // Index of the next int to read
+
+    /**
+     * Gets the number of ints in this GameState.
+     * @return   The size of the state.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets an int of this GameState.
+     * @param i   The index of the int (less than size()).
+     * @return    The int.
+     */
+    public int get(int i) {
+        return data[i];
+    }
+
+    /**
+     * Removes the contents of this GameState.
+     */
+    public void clear() {
+        size = 0;
+        position = 0;
+    }
+
+    /**
+     * Sets the contents of this GameState.
+     * @param state    The ints of the state.
+     * @param length   The number of ints.
+     */
+    public void set(int[] state, int length) {
+        clear();
+        ensureCapacity(length);
+        System.arraycopy(state, 0, data, 0, length);
+        size = length;
+    }
+
+    /**
+     * Starts reading this GameState from the beginning.
+     */
+    void rewind() {
+        position = 0;
+    }
+
+    /**
+     * Appends an int.
+     * @param value   The int.
+     */
+    public void putInt(int value) {
+        ensureCapacity(size + 1);
+        data[size++] = value;
+    }
+
+    /**
+     * Appends a long (as two ints).
+     * @param value   The long.
+     */
+    public void putLong(long value) {
+        putInt((int) (value >>> 32));
+        putInt((int) value);
+    }
+
+    /**
+     * Appends a City (as its index in a Network, or -1 for 'null').
+     * @param network   The Network of the Game.
+     * @param c         The City (or 'null').
+     */
+    public void putCity(Network network, City c) {
+        putInt(c == null ? -1 : network.indexOf(c));
+    }
+
+    /**
+     * Reads the next int.
+     * @return   The int.
+     * @throws IllegalStateException   If all ints have been read.
+     */
+    public int getInt() {
+        if(position >= size) {
+            throw new IllegalStateException("The state ends after " + size + " ints");
+        }
+        return data[position++];
+    }
+
+    /**
+     * Reads the next long.
+     * @return   The long.
+     */
+    public long getLong() {
+        long high = getInt();
+        return high << 32 | getInt() & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Reads the next City.
+     * @param network   The Network of the Game.
+     * @return          The City (or 'null').
+     */
+    public City getCity(Network network) {
+        int c = getInt();
+        return c < 0 ? null : network.getCity(c);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if(capacity > data.length) {
+            data = Arrays.copyOf(data, Math.max(capacity, 2 * data.length));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Tests that Game.fastForward plays out exactly like calling Game.step() the same number of times.
+ */
+public class GameTest
+{
+    /**
+     * Plays the same seeds with step() and with fastForward(), for every mix of AI players, and compares the money
+     * and positions of the players (and the rest of the state) at the end.
+     */
+    @Test
+    public void fastForwardMatchesStep() throws IOException
+    {
+        for(int mix = 0; mix < 8; mix++) {
+            // Separate games, since a SmartPlayer counts its plans over all games
+            Game stepped = generate(mix, 100), forwarded = generate(mix, 100);
+            for(int seed = 0; seed < 3; seed++) {
+                String message = "AI mix " + mix + ", seed " + seed;
+                stepped.reset(seed);
+                while(stepped.ongoing()) {
+                    stepped.step();
+                }
+                forwarded.reset(seed);
+                forwarded.fastForward();
+                assertEquals(message, describe(stepped), describe(forwarded));
+                assertArrayEquals(message, state(stepped), state(forwarded));
+            }
+        }
+    }
+
+    /**
+     * Alternates between step() and fastForward(int) with random numbers of steps, and compares the state after
+     * every call with a game which is only stepped.
+     */
+    @Test
+    public void fastForwardInPartsMatchesStep() throws IOException
+    {
+        Random random = new Random(3);
+        Game stepped = generate(7, 100), forwarded = generate(7, 100);
+        for(int seed = 0; seed < 3; seed++) {
+            stepped.reset(seed);
+            forwarded.reset(seed);
+            while(forwarded.ongoing()) {
+                int steps = random.nextInt(4) == 0 ? 1 : random.nextInt(60);
+                if(steps == 1) {
+                    forwarded.step();
+                } else {
+                    forwarded.fastForward(steps);
+                }
+                for(int k = 0; k < steps && stepped.ongoing(); k++) {
+                    stepped.step();
+                }
+                String message = "seed " + seed + ", " + forwarded.getStepsLeft() + " steps left";
+                assertEquals(message, describe(stepped), describe(forwarded));
+                assertArrayEquals(message, state(stepped), state(forwarded));
+            }
+        }
+    }
+
+    /**
+     * Saves the state in the middle of a game, plays to the end, restores the state and plays to the end again,
+     * and checks that both ends are the same. Also checks that a state of another network is rejected.
+     */
+    @Test
+    public void restoreStateContinuesExactly() throws IOException
+    {
+        Game game = generate(7, 100);
+        for(int seed = 0; seed < 3; seed++) {
+            game.reset(seed);
+            for(int k = 0; k < 50 + 30 * seed; k++) {
+                game.step();
+            }
+            GameState saved = game.saveState();
+            int[] middle = state(game);
+            while(game.ongoing()) {
+                game.step();
+            }
+            List<String> end = describe(game);
+            int[] endState = state(game);
+
+            game.restoreState(saved);
+            assertArrayEquals("seed " + seed, middle, state(game));
+            while(game.ongoing()) {
+                game.step();
+            }
+            assertEquals("seed " + seed, end, describe(game));
+            assertArrayEquals("seed " + seed, endState, state(game));
+        }
+
+        GameState other = generate(7, 80).saveState();
+        int[] before = state(game);
+        try {
+            game.restoreState(other);
+            fail("a state of another network should be rejected");
+        } catch(IllegalArgumentException e) {
+            assertArrayEquals(before, state(game));
+        }
+    }
+
+    /**
+     * Loads a network made by Generator, with the AI players given by the bits of 'mix' (see Settings.isActive),
+     * and games of 200 steps.
+     */
+    private static Game generate(int mix, int cities) throws IOException
+    {
+        Generator generator = new Generator(mix);
+        generator.setCities(cities);
+        generator.setRoadLengths(2, 6);     // Keeps the SmartPlayer's search small
+        StringWriter out = new StringWriter();
+        generator.write(out);
+        boolean[] active = {(mix & 1) != 0, (mix & 2) != 0, (mix & 4) != 0};
+        Settings settings = new Settings(active, 20, 20, 10, 50, 2);
+        settings.setPersistent(false);
+        Game game = Game.load(new ByteArrayInputStream(out.toString().getBytes(StandardCharsets.UTF_8)), settings);
+        game.setTotalSteps(200);
+        return game;
+    }
+
+    /**
+     * Gets the name, money and position of every player.
+     */
+    private static List<String> describe(Game game)
+    {
+        List<String> players = new ArrayList<>();
+        for(Player p : game.getPlayers()) {
+            players.add(p.getName() + ": " + p.getMoney() + " at " + p.getPosition());
+        }
+        return players;
+    }
+
+    private static int[] state(Game game)
+    {
+        GameState state = game.saveState();
+        int[] ints = new int[state.size()];
+        for(int i = 0; i < ints.length; i++) {
+            ints[i] = state.get(i);
+        }
+        return ints;
+    }
+}
@@ -0,0 +1,350 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Generates random networks in the format of network.dat, for testing the game at a larger scale.
+ *
+ * The countries are laid out in a grid on the map, and the cities of each country in a jittered grid inside it.
+ * The cities of a country are connected by a spanning tree, plus extra roads to nearby cities, so the average number
+ * of roads per city matches the requested degree. The extra roads of each city follow a uniform or a power-law
+ * distribution (the latter gives a few hubs with many roads). Road lengths grow with the distance between the cities.
+ * A fraction of the roads cross a border, always to a neighbouring country.
+ *
+ * The file is written in a single pass: each country (its cities, roads and positions) only depends on the seed
+ * and the number of the country, so only one country is kept in memory at a time, and the roads across borders
+ * are written at the end. The same seed and configuration always give the same file.
+ */
+public class Generator {
+
+    /** Distribution of the number of extra roads of each city */
+    public enum Degrees { UNIFORM, POWER_LAW }
+
+    private long seed;                          // Seed of the network
+    private int countries = 4;                  // Number of countries
+    private int cities = 56;                    // Total number of cities
+    private double degree = 4;                  // Average number of roads per city
+    private Degrees degrees = Degrees.UNIFORM;  // Distribution of the extra roads of each city
+    private int minLength = 1, maxLength = 5;   // Shortest and longest road
+    private double crossBorder = 0.05;          // Fraction of the roads which cross a border
+    private int width = 1000, height = 800;     // Size of the map (in pixels)
+
+    /**
+     * Creates a new Generator (with 56 cities in 4 countries, about four roads per city, and 5% of the roads
+     * crossing a border, like network.dat).
+     * @param seed   The seed of the networks to generate.
+     */
+    public Generator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the number of countries.
+     * @param countries   The number of countries (at least 1).
+     */
+    public void setCountries(int countries) {
+        this.countries = Math.max(1, countries);
+    }
+
+    /**
+     * Sets the total number of cities (which are divided evenly between the countries).
+     * @param cities   The number of cities (at least one per country).
+     */
+    public void setCities(int cities) {
+        this.cities = cities;
+    }
+
+    /**
+     * Sets the average number of roads per city, and how the roads are distributed.
+     * @param degree      The average number of roads of each city (at least 2, because of the spanning trees).
+     * @param degrees     The distribution of the roads beyond the spanning tree.
+     */
+    public void setDegree(double degree, Degrees degrees) {
+        this.degree = degree;
+        this.degrees = degrees;
+    }
+
+    /**
+     * Sets the lengths of the roads. Roads between neighbouring cities are the shortest.
+     * @param min   The length of the shortest road (at least 1).
+     * @param max   The length of the longest road.
+     */
+    public void setRoadLengths(int min, int max) {
+        this.minLength = Math.max(1, min);
+        this.maxLength = Math.max(this.minLength, max);
+    }
+
+    /**
+     * Sets the fraction of the roads which cross a border.
+     * @param ratio   The fraction (0 gives countries which are not connected).
+     */
+    public void setCrossBorderRatio(double ratio) {
+        this.crossBorder = ratio;
+    }
+
+    /**
+     * Sets the size of the map, which determines the GUI positions of the cities.
+     * @param width    The width (in pixels).
+     * @param height   The height (in pixels).
+     */
+    public void setMapSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Writes a network to a file (encoded as UTF-8).
+     * @param path   The file to write.
+     * @throws IOException   If the file could not be written.
+     */
+    public void write(String path) throws IOException {
+        try(Writer out = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(Paths.get(path)), StandardCharsets.UTF_8), 1 << 16)) {
+            write(out);
+        }
+    }
+
+    /**
+     * Writes a network.
+     * @param out   Where to write the network (it is not closed).
+     * @throws IOException   If the network could not be written.
+     */
+    public void write(Writer out) throws IOException {
+        Line line = new Line(out);
+        line.append("// Generated by Generator: ").append(cities).append(" cities in ").append(countries)
+            .append(" countries, seed ").append(seed).end();
+        line.append("Game ").append((int) seed).end();
+
+        for(int k = 0; k < countries; k++) {
+            Layout country = new Layout(k);
+            Random random = random(k, -1);
+            line.end();
+            line.append("Country ").append(country.name).end();
+            for(int i = 0; i < country.size; i++) {
+                line.append("City ").append(country.city(i)).append(' ').append(country.values[i]);
+                if(i == country.capital) {
+                    line.append(" capital");
+                }
+                line.end();
+            }
+            for(int i = 1; i < country.size; i++) {     // Spanning tree: the city to the left, or above
+                int j = i % country.columns != 0 ? i - 1 : i - country.columns;
+                road(line, country, i, country, j);
+            }
+            double extra = Math.max(0, degree - 2) / 2;
+            for(int i = 0; i < country.size; i++) {
+                int roads = extraRoads(random, extra);
+                int radius = 1 + (int) Math.sqrt(roads);
+                for(int r = 0; r < roads; r++) {
+                    int j = country.near(random, i, radius);
+                    if(j >= 0) {
+                        road(line, country, i, country, j);
+                    }
+                }
+            }
+            for(int i = 0; i < country.size; i++) {
+                line.append("Position ").append(country.city(i)).append(' ').append(country.x[i]).append(' ')
+                    .append(country.y[i]).end();
+            }
+        }
+
+        line.end();
+        line.append("// Roads across borders").end();
+        int grid = columns(countries, width, height);
+        for(int k = 0; k < countries && crossBorder > 0; k++) {
+            Layout a = new Layout(k);
+            int perCountry = (int) Math.round(crossBorder * a.size * degree / 2);
+            int[] neighbours = {k % grid + 1 < grid ? k + 1 : -1, k + grid};
+            for(int direction = 0; direction < 2; direction++) {
+                if(neighbours[direction] < 0 || neighbours[direction] >= countries) {
+                    continue;
+                }
+                Layout b = new Layout(neighbours[direction]);
+                Random random = random(k, direction);
+                int roads = Math.max(1, perCountry / 2);
+                for(int r = 0; r < roads; r++) {
+                    road(line, a, a.edge(random, direction, false), b, b.edge(random, direction, true));
+                }
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Draws the number of extra roads of a city.
+     * @param random   The source of randomness.
+     * @param mean     The average number of extra roads.
+     */
+    private int extraRoads(Random random, double mean) {
+        if(mean <= 0) {
+            return 0;
+        }
+        if(degrees == Degrees.POWER_LAW) {    // Pareto distribution with exponent 2.5 (whose mean is 3 * minimum)
+            double x = mean / 3 * Math.pow(1 - random.nextDouble(), -1 / 1.5);
+            return (int) Math.min(x + random.nextDouble(), 1000);
+        }
+        return (int) (random.nextDouble() * (2 * mean + 1));
+    }
+
+    private void road(Line line, Layout a, int i, Layout b, int j) throws IOException {
+        double distance = Math.hypot(a.x[i] - b.x[j], a.y[i] - b.y[j]);
+        double spacing = Math.max(a.spacing, b.spacing);
+        int length = minLength + (int) Math.round((maxLength - minLength) * Math.min(1, distance / (3 * spacing)));
+        line.append("Road ").append(a.city(i)).append(' ').append(b.city(j)).append(' ').append(length).end();
+    }
+
+    /**
+     * Creates the source of randomness of a part of the network.
+     * @param country   The number of the country.
+     * @param part      Which part of the country (-1 for its cities and roads, 0 and 1 for its borders).
+     */
+    private Random random(int country, int part) {
+        return new Random(seed * 0x9E3779B97F4A7C15L + 31L * country + part);
+    }
+
+    /**
+     * Finds the number of columns of a grid with a given number of cells, whose cells are roughly square.
+     */
+    private static int columns(int cells, double width, double height) {
+        return Math.max(1, Math.min(cells, (int) Math.ceil(Math.sqrt(cells * width / height))));
+    }
+
+    /**
+     * The cities of a country, laid out in a jittered grid inside the country's cell of the map.
+     */
+    private class Layout {
+
+        String name;
+        int size, columns, capital;
+        int[] x, y, values;
+        double spacing;         // Distance between neighbouring cities (in pixels)
+
+        Layout(int k) {
+            name = "C" + k;
+            size = cities / countries + (k < cities % countries ? 1 : 0);
+            size = Math.max(1, size);
+
+            int grid = columns(countries, width, height);
+            int rows = (countries + grid - 1) / grid;
+            double cellWidth = width / (double) grid, cellHeight = height / (double) rows;
+            columns = columns(size, cellWidth, cellHeight);
+            int cityRows = (size + columns - 1) / columns;
+            double dx = cellWidth / columns, dy = cellHeight / cityRows;
+            spacing = Math.max(dx, dy);
+
+            Random random = random(k, -2);
+            x = new int[size];
+            y = new int[size];
+            values = new int[size];
+            for(int i = 0; i < size; i++) {
+                x[i] = (int) ((k % grid) * cellWidth + (i % columns + 0.1 + 0.8 * random.nextDouble()) * dx);
+                y[i] = (int) ((k / grid) * cellHeight + (i / columns + 0.1 + 0.8 * random.nextDouble()) * dy);
+                values[i] = 10 * (5 + random.nextInt(21));
+            }
+            capital = (cityRows / 2) * columns + Math.min(columns, size) / 2;
+            capital = Math.min(capital, size - 1);
+            values[capital] *= 2;
+        }
+
+        String city(int i) {
+            return name + "." + i;
+        }
+
+        /**
+         * Picks a random city at most 'radius' rows and columns away from city i (or -1 if there is none).
+         */
+        int near(Random random, int i, int radius) {
+            for(int attempt = 0; attempt < 16; attempt++) {
+                int column = i % columns + random.nextInt(2 * radius + 1) - radius;
+                int row = i / columns + random.nextInt(2 * radius + 1) - radius;
+                int j = row * columns + column;
+                if(column >= 0 && column < columns && row >= 0 && j < size && j != i) {
+                    return j;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Picks a random city on an edge of the grid.
+         * @param direction   0 for the right (or left) edge, 1 for the bottom (or top) edge.
+         * @param opposite    True for the left or top edge.
+         */
+        int edge(Random random, int direction, boolean opposite) {
+            int rows = (size + columns - 1) / columns;
+            if(direction == 0) {
+                int row = random.nextInt(rows);
+                int column = opposite ? 0 : columns - 1;
+                return Math.min(row * columns + column, size - 1);
+            }
+            int column = random.nextInt(columns);
+            int row = opposite ? 0 : rows - 1;
+            return Math.min(row * columns + column, size - 1);
+        }
+    }
+
+    /**
+     * Builds the lines of the file without String.format or concatenation.
+     */
+    private static class Line {
+
+        private Writer out;
+        private StringBuilder builder = new StringBuilder(64);
+
+        Line(Writer out) {
+            this.out = out;
+        }
+
+        Line append(String s) {
+            builder.append(s);
+            return this;
+        }
+
+        Line append(char c) {
+            builder.append(c);
+            return this;
+        }
+
+        Line append(long n) {
+            builder.append(n);
+            return this;
+        }
+
+        void end() throws IOException {
+            builder.append('\n');
+            out.append(builder);
+            builder.setLength(0);
+        }
+    }
+
+    /**
+     * Generates a network file.
+     * Usage: java Generator [output] [cities] [countries] [seed] [degree] [cross-border ratio] [uniform|powerlaw] [image]
+     * The defaults are generated.dat, 10000 cities, 100 countries, seed 0, 4 roads per city, 5% of the roads across
+     * borders and a uniform distribution. If the last argument is 'image', the file is also compiled to a NetworkImage.
+     * @param args   The arguments (see above).
+     */
+    public static void main(String[] args) throws IOException {
+        String output = args.length > 0 ? args[0] : "generated.dat";
+        Generator generator = new Generator(args.length > 3 ? Long.parseLong(args[3]) : 0);
+        generator.setCities(args.length > 1 ? Integer.parseInt(args[1]) : 10000);
+        generator.setCountries(args.length > 2 ? Integer.parseInt(args[2]) : 100);
+        generator.setDegree(args.length > 4 ? Double.parseDouble(args[4]) : 4,
+                args.length > 6 && args[6].equalsIgnoreCase("powerlaw") ? Degrees.POWER_LAW : Degrees.UNIFORM);
+        generator.setCrossBorderRatio(args.length > 5 ? Double.parseDouble(args[5]) : 0.05);
+
+        long time = System.nanoTime();
+        generator.write(output);
+        System.out.printf("%s written in %.1f ms%n", output, (System.nanoTime() - time) / 1e6);
+        if(args.length > 7 && args[7].equalsIgnoreCase("image")) {
+            time = System.nanoTime();
+            NetworkImage.compile(output);
+            System.out.printf("%s compiled in %.1f ms%n", NetworkImage.imageOf(output), (System.nanoTime() - time) / 1e6);
+        }
+    }
+}
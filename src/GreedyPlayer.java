@@ -1,5 +1,4 @@
 import java.awt.Color;
-import java.util.*;
 
 /**
  * Models a player which greedily chooses the next city to travel to (looking only one city ahead).
@@ -21,13 +20,15 @@ public class GreedyPlayer extends Player {
         super.step();
         if(getPosition().hasArrived()) {
             City city = getPosition().getTo();
-            List<Road> roads = new ArrayList<>(getCountry().getRoads(city));
+            Network network = getCountry().getGame().getNetwork();
+            int c = network.indexOf(city);
             double best = 0;
             City bestCity = null;
-            for(Road road : roads) {
-                double value = road.getTo().getValue() / (double) road.getLength();
+            for(int e = network.first(c); e < network.end(c); e++) {
+                City to = network.getCity(network.target(e));
+                double value = to.getValue() / (double) network.length(e);
                 if(value > best) {
-                    bestCity = road.getTo();
+                    bestCity = to;
                     best = value;
                 }
             }
@@ -0,0 +1,199 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Splits a UTF-8 stream into lines of whitespace-separated tokens, in a single pass over the characters.
+ * Tokens are separated by any run of spaces and tabs. Numbers are parsed directly from the characters,
+ * and only tokens which are asked for as a String (such as names) are copied into a String.
+ * Malformed UTF-8 is reported as an IOException instead of being replaced by the platform's guess.
+ */
+public class LineTokenizer {
+
+    private Reader in;                          // Decoded characters of the stream
+    private char[] buffer = new char[1 << 16];  // Characters read from 'in' which have not been consumed
+    private int bufferPosition, bufferLimit;    // Unconsumed part of 'buffer'
+    private char[] line = new char[256];        // Characters of the current line (grows with the longest line)
+    private int length;                         // Number of characters in the current line
+    private int position;                       // Position of the next character of the current line
+    private int lineNumber;                     // Number of the current line (1 is the first line)
+    private boolean skipNewline;                // True if the last line ended with '\r' (so a '\n' right after it is skipped)
+
+    /**
+     * Creates a new LineTokenizer which decodes a stream as UTF-8.
+     * @param stream   The stream to read (it is not closed).
+     */
+    public LineTokenizer(InputStream stream) {
+        in = new InputStreamReader(stream, StandardCharsets.UTF_8.newDecoder());
+    }
+
+    /**
+     * Advances to the next line. A line ends with '\n', '\r' or "\r\n", like in BufferedReader.readLine.
+     * @return   True if there was another line; false at the end of the stream.
+     * @throws IOException   If the stream could not be read or is not valid UTF-8.
+     */
+    public boolean nextLine() throws IOException {
+        length = 0;
+        position = 0;
+        boolean read = false;
+        while(true) {
+            if(bufferPosition == bufferLimit) {
+                bufferLimit = in.read(buffer);
+                bufferPosition = 0;
+                if(bufferLimit <= 0) {
+                    bufferLimit = 0;
+                    if(read) {
+                        lineNumber++;
+                    }
+                    return read;
+                }
+            }
+            char c = buffer[bufferPosition++];
+            if(skipNewline) {
+                skipNewline = false;
+                if(c == '\n') {
+                    continue;
+                }
+            }
+            read = true;
+            if(c == '\n' || c == '\r') {
+                skipNewline = c == '\r';
+                lineNumber++;
+                return true;
+            }
+            if(length == line.length) {
+                line = Arrays.copyOf(line, 2 * length);
+            }
+            line[length++] = c;
+        }
+    }
+
+    /**
+     * Determines whether the current line has more tokens (and skips the whitespace before the next one).
+     * @return   True if there is another token on the current line.
+     */
+    public boolean hasToken() {
+        while(position < length && isSpace(line[position])) {
+            position++;
+        }
+        return position < length;
+    }
+
+    /**
+     * Consumes the next token if it equals a given word, ignoring case.
+     * @param word   The word to look for.
+     * @return       True if the next token was 'word' (and it was consumed); false otherwise.
+     */
+    public boolean accept(String word) {
+        if(!hasToken()) {
+            return false;
+        }
+        int end = tokenEnd();
+        if(end - position != word.length()) {
+            return false;
+        }
+        for(int i = 0; i < word.length(); i++) {
+            char a = line[position + i], b = word.charAt(i);
+            if(a != b && Character.toLowerCase(a) != Character.toLowerCase(b)) {
+                return false;
+            }
+        }
+        position = end;
+        return true;
+    }
+
+    /**
+     * Determines whether the next token starts with a given prefix (without consuming it).
+     * @param prefix   The prefix to look for.
+     * @return         True if there is a next token, and it starts with 'prefix'.
+     */
+    public boolean startsWith(String prefix) {
+        if(!hasToken() || tokenEnd() - position < prefix.length()) {
+            return false;
+        }
+        for(int i = 0; i < prefix.length(); i++) {
+            if(line[position + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Consumes the next token.
+     * @return   The token (or 'null' if the current line has no more tokens).
+     */
+    public String token() {
+        if(!hasToken()) {
+            return null;
+        }
+        int start = position;
+        position = tokenEnd();
+        return new String(line, start, position - start);
+    }
+
+    /**
+     * Consumes the next token as a (decimal) integer.
+     * @return   The value of the token.
+     * @throws NumberFormatException   If there is no next token, or it is not an integer.
+     */
+    public int intToken() {
+        if(!hasToken()) {
+            throw new NumberFormatException("Expected a number at line " + lineNumber);
+        }
+        int end = tokenEnd();
+        int i = position;
+        boolean negative = line[i] == '-';
+        if(negative || line[i] == '+') {
+            i++;
+        }
+        if(i == end) {
+            throw invalidNumber(end);
+        }
+        long value = 0;
+        for(; i < end; i++) {
+            int digit = line[i] - '0';
+            if(digit < 0 || digit > 9) {
+                throw invalidNumber(end);
+            }
+            value = 10 * value + digit;
+            if(value > Integer.MAX_VALUE + 1L) {
+                throw invalidNumber(end);
+            }
+        }
+        value = negative ? -value : value;
+        if(value > Integer.MAX_VALUE) {
+            throw invalidNumber(end);
+        }
+        position = end;
+        return (int) value;
+    }
+
+    /**
+     * Gets the number of the current line.
+     * @return   The number of the current line (1 is the first line).
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    private NumberFormatException invalidNumber(int end) {
+        return new NumberFormatException("For input string: \"" + new String(line, position, end - position)
+                + "\" at line " + lineNumber);
+    }
+
+    private int tokenEnd() {
+        int end = position;
+        while(end < length && !isSpace(line[end])) {
+            end++;
+        }
+        return end;
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t';
+    }
+}
@@ -0,0 +1,79 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Tests that LineTokenizer splits lines like BufferedReader.readLine, whether they end with '\n', '\r' or "\r\n".
+ */
+public class LineTokenizerTest
+{
+    /**
+     * Tests files whose lines end in each of the three ways, and in a mix of them.
+     */
+    @Test
+    public void lineTerminators() throws IOException
+    {
+        String[] texts = {
+            "Country A\nCity B 30\n\nRoad B C 4\n",
+            "Country A\r\nCity B 30\r\n\r\nRoad B C 4\r\n",
+            "Country A\rCity B 30\r\rRoad B C 4\r",
+            "Country A\rCity B 30\r\n\n\rRoad B C 4",
+            "\r\n\r\r\n\n",
+            "",
+        };
+        for(String text : texts) {
+            assertEquals(text.replace("\r", "\\r").replace("\n", "\\n"), readLines(text), tokenize(text));
+        }
+    }
+
+    /**
+     * Tests a "\r\n" which is split between two reads of the underlying stream.
+     */
+    @Test
+    public void terminatorAcrossBuffer() throws IOException
+    {
+        for(int length = (1 << 16) - 3; length <= (1 << 16) + 1; length++) {
+            char[] name = new char[length];
+            Arrays.fill(name, 'x');
+            String text = new String(name) + "\r\nCity B 30\r\r\nRoad B C 4";
+            assertEquals("line of " + length + " characters", readLines(text), tokenize(text));
+        }
+    }
+
+    /**
+     * Gets the lines of a text as BufferedReader.readLine reads them, with their tokens separated by single spaces.
+     */
+    private static List<String> readLines(String text) throws IOException
+    {
+        List<String> lines = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new StringReader(text));
+        int number = 0;
+        for(String line = reader.readLine(); line != null; line = reader.readLine()) {
+            lines.add(++number + ":" + String.join(" ", line.trim().isEmpty() ? new String[0] : line.trim().split("[ \t]+")));
+        }
+        return lines;
+    }
+
+    /**
+     * Gets the lines of a text as LineTokenizer reads them, with their tokens separated by single spaces.
+     */
+    private static List<String> tokenize(String text) throws IOException
+    {
+        List<String> lines = new ArrayList<>();
+        LineTokenizer tokenizer = new LineTokenizer(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+        while(tokenizer.nextLine()) {
+            List<String> tokens = new ArrayList<>();
+            while(tokenizer.hasToken()) {
+                tokens.add(tokenizer.token());
+            }
+            lines.add(tokenizer.getLineNumber() + ":" + String.join(" ", tokens));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,161 @@
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * The background image of the map, which is only read when (and where) it is drawn.
+ * An image of at most MAX_PIXELS pixels is read completely the first time it is drawn. A larger image is read in
+ * tiles of TILE_SIZE pixels, skipping pixels when it is drawn zoomed out (so a tile is never read at a higher
+ * resolution than it is drawn at), and only the CACHE_SIZE tiles drawn most recently are kept in memory.
+ * Must only be used by one thread (e.g. the Swing event thread).
+ */
+public class MapImage {
+
+    /** Largest image which is kept in memory as a whole */
+    private static final long MAX_PIXELS = 4096 * 4096;
+
+    /** Side length of the tiles of a large image (in pixels, after skipping pixels) */
+    private static final int TILE_SIZE = 512;
+
+    /** Number of tiles kept in memory */
+    private static final int CACHE_SIZE = 48;
+
+    private final File file;
+    private int width, height;              // Size of the image (0 if it could not be read)
+    private BufferedImage image;            // The whole image (if it is small and has been read)
+
+    /** Tiles of a large image, by subsampling and position, in the order they were last drawn */
+    private final Map<Long, BufferedImage> tiles = new LinkedHashMap<Long, BufferedImage>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Opens an image (only its size is read).
+     * @param file   The image file (e.g. map.png).
+     */
+    public MapImage(File file) {
+        this.file = file;
+        try(ImageInputStream in = open()) {
+            ImageReader reader = reader(in);
+            try {
+                width = reader.getWidth(0);
+                height = reader.getHeight(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch(IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Gets the width of the image.
+     * @return   The width (in pixels).
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the image.
+     * @return   The height (in pixels).
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Draws the part of the image inside a rectangle, with its top left corner at (0, 0).
+     * @param g2d    The Graphics2D to draw with (in the coordinates of the image).
+     * @param area   The rectangle (in the coordinates of the image).
+     * @param zoom   The size of a pixel of the image on the screen (e.g. 0.25 when zoomed out four times).
+     */
+    public void draw(Graphics2D g2d, Rectangle area, double zoom) {
+        Rectangle part = area.intersection(new Rectangle(width, height));
+        if(part.isEmpty()) {
+            return;
+        }
+        try {
+            if((long) width * height <= MAX_PIXELS) {
+                if(image == null) {
+                    image = read(new Rectangle(width, height), 1);
+                }
+                g2d.drawImage(image, 0, 0, null);
+                return;
+            }
+
+            // Skip pixels (by a power of 2, so the tiles can be reused) when several pixels cover one on the screen
+            int subsampling = 1;
+            while(subsampling * 2 * zoom <= 1 && subsampling < 1 << 20) {
+                subsampling *= 2;
+            }
+            int size = TILE_SIZE * subsampling;
+            for(int ty = part.y / size; ty <= (part.y + part.height - 1) / size; ty++) {
+                for(int tx = part.x / size; tx <= (part.x + part.width - 1) / size; tx++) {
+                    Rectangle region = new Rectangle(tx * size, ty * size, size, size)
+                            .intersection(new Rectangle(width, height));
+                    long key = (long) Integer.numberOfTrailingZeros(subsampling) << 48 | (long) tx << 24 | ty;
+                    BufferedImage tile = tiles.get(key);
+                    if(tile == null) {
+                        tile = read(region, subsampling);
+                        tiles.put(key, tile);
+                    }
+                    g2d.drawImage(tile, region.x, region.y, region.width, region.height, null);
+                }
+            }
+        } catch(IOException e) {
+            e.printStackTrace();
+            width = height = 0;
+        }
+    }
+
+    /**
+     * Reads a part of the image, using every 'subsampling'th pixel in each direction.
+     */
+    private BufferedImage read(Rectangle region, int subsampling) throws IOException {
+        try(ImageInputStream in = open()) {
+            ImageReader reader = reader(in);
+            try {
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(region);
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private ImageInputStream open() throws IOException {
+        ImageInputStream in = file.exists() ? ImageIO.createImageInputStream(file) : null;
+        if(in == null) {
+            throw new IOException("Unable to read " + file);
+        }
+        return in;
+    }
+
+    private ImageReader reader(ImageInputStream in) throws IOException {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+        if(!readers.hasNext()) {
+            throw new IOException(file + " is not an image");
+        }
+        ImageReader reader = readers.next();
+        reader.setInput(in, true, true);
+        return reader;
+    }
+}
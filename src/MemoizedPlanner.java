@@ -0,0 +1,297 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A Planner which computes the same path as DepthFirstPlanner using dynamic programming.
+ * The value of a path starting in a city only depends on the city, the number of steps remaining and
+ * how many times each city has been visited so far. The latter is summarized by a 64-bit visit signature
+ * (the sum of a random key for every visit), so identical states reached in different orders are only searched once.
+ * Results are stored in a fixed-size transposition table, which bounds the memory used by a single call.
+ * Roads which cannot lead to a better path than the best one found from the same city are not searched (see
+ * computeBounds), which does not change the result.
+ */
+public class MemoizedPlanner extends NetworkPlanner {
+
+    /** Number of entries in the transposition table (must be a power of two) */
+    private static final int TABLE_SIZE = 1 << 18;
+
+    /** Number of slots to probe before overwriting an entry */
+    private static final int PROBES = 4;
+
+    private long[] keys;            // Random key of each city (used for visit signatures)
+    private int minLength;          // Shortest road in the network
+    private double[] suffixBound;   // suffixBound[r] bounds the value of any path of at most r steps
+    private PathBuffer path;        // Best path found by the last call
+
+    // Transposition table
+    private long[] tableSignature;
+    private int[] tableState, tableGeneration, tableLength, tableEdges, tableFirst;
+    private double[] tableValue;
+    private int generation;
+
+    // Result of the last call to search(..)
+    private double resultValue;
+    private int resultLength, resultEdges, resultFirst;
+
+    /**
+     * Creates a new MemoizedPlanner.
+     */
+    public MemoizedPlanner() {
+        tableSignature  = new long[TABLE_SIZE];
+        tableState      = new int[TABLE_SIZE];
+        tableGeneration = new int[TABLE_SIZE];
+        tableLength     = new int[TABLE_SIZE];
+        tableEdges      = new int[TABLE_SIZE];
+        tableFirst      = new int[TABLE_SIZE];
+        tableValue      = new double[TABLE_SIZE];
+        path = new PathBuffer(MAX_DEPTH + 1);
+        suffixBound = new double[MAX_DEPTH + 1];
+    }
+
+    @Override
+    public City nextCity(City c, int n) {
+        int root = start(c);
+
+        // Entries from earlier calls are stale, since city values have changed
+        generation++;
+        if(generation == 0) {
+            Arrays.fill(tableGeneration, 0);
+            generation = 1;
+        }
+
+        computeBounds();
+        search(root, n, keys[root]);
+        if(resultEdges == 0) {
+            path.clear();
+            return c;
+        }
+        int first = resultFirst;
+        followPath(root, n, keys[root], resultValue);
+        return network.getCity(network.target(first));
+    }
+
+    /**
+     * Gets the best path found by the last call to nextCity.
+     * The path is read back from the transposition table, so it may be cut short if entries have been overwritten.
+     * @return The best path (as edges in the Network).
+     */
+    @Override
+    public PathBuffer getPath() {
+        return path;
+    }
+
+    /**
+     * Reads the best path from the transposition table into 'path'.
+     * @param c           Index of the city to start from.
+     * @param i           The number of steps remaining.
+     * @param signature   The visit signature at 'c'.
+     * @param value       The value of the best path.
+     */
+    private void followPath(int c, int i, long signature, double value) {
+        path.clear();
+        path.setValue(value);
+        int n = Math.min(i, MAX_DEPTH);
+        int slot;
+        while((slot = lookup(c * (MAX_DEPTH + 1) + n, signature)) >= 0 && tableEdges[slot] > 0) {
+            int e = tableFirst[slot];
+            path.append(e, network.length(e));
+            n = Math.min(n - network.length(e), MAX_DEPTH);
+            c = network.target(e);
+            signature += keys[c];
+        }
+    }
+
+    @Override
+    protected void networkChanged() {
+        keys = new long[network.size()];
+        Random random = new Random(network.size());
+        for(int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextLong();
+        }
+        minLength = Integer.MAX_VALUE;
+        for(int e = 0; e < (network.size() == 0 ? 0 : network.end(network.size() - 1)); e++) {
+            minLength = Math.max(1, Math.min(minLength, network.length(e)));
+        }
+    }
+
+    /**
+     * Computes suffixBound from the largest city value.
+     * A path of r steps has at most r/minLength roads, and the city reached by the k'th road from the end of the path
+     * is divided by IMPULSIVENESS^k (see value(..)), so its value is at most the largest city value times
+     * 1 + 1/1.1 + ... + 1/1.1^(r/minLength) (the 1 is for the city the last road starts from).
+     */
+    private void computeBounds() {
+        double maxValue = 0;
+        for(int value : values) {
+            maxValue = Math.max(maxValue, value);
+        }
+        double sum = 0, discount = 1;
+        for(int r = 0; r <= MAX_DEPTH; r++) {
+            if(r > 0 && r % minLength == 0) {
+                discount /= IMPULSIVENESS;
+                sum += discount;
+            }
+            suffixBound[r] = r < minLength ? 0 : maxValue * (1 + sum);
+        }
+    }
+
+    /**
+     * Finds the path which provides maximum value.
+     * Computes exactly what DepthFirstPlanner.maximizeValue computes, and stores it in the result fields.
+     * @param c           Index of the city to travel from.
+     * @param i           The number of steps remaining.
+     * @param signature   The visit signature of the current path.
+     */
+    private void search(int c, int i, long signature) {
+        int n = Math.min(i, MAX_DEPTH);
+        int state = c * (MAX_DEPTH + 1) + n;
+        int slot = lookup(state, signature);
+        if(slot >= 0) {
+            resultValue  = tableValue[slot];
+            resultLength = tableLength[slot];
+            resultEdges  = tableEdges[slot];
+            resultFirst  = tableFirst[slot];
+            return;
+        }
+
+        double bestValue = 0;
+        int bestLength = 0, bestEdges = 0, bestFirst = -1;
+        for(int e = network.first(c); e < network.end(c); e++) {
+            int length = network.length(e);
+            if(length > n) {
+                continue;
+            }
+            int to = network.target(e);
+            int v = visits[to] + 1;
+
+            // Skip roads which cannot lead to a better path than the best so far (a path which is only as good wins
+            // if it is shorter, so only strictly better paths are cut; the slack covers rounding)
+            double bound = Math.max(suffixBound[n - length], contributionBound(c, v))
+                    + contributionBound(to, v) / IMPULSIVENESS;
+            if(bestValue > bound * (1 + 1e-9)) {
+                continue;
+            }
+            visits[to] = v;
+            search(to, n - length, signature + keys[to]);
+            visits[to]--;
+
+            double value = value(resultValue, resultEdges, c, to, v);
+
+            int newLength = resultLength + length;
+            if(value > bestValue || (value == bestValue && newLength < bestLength)) {
+                bestValue = value;
+                bestLength = newLength;
+                bestEdges = resultEdges + 1;
+                bestFirst = e;
+            }
+        }
+
+        store(state, signature, bestValue, bestLength, bestEdges, bestFirst);
+        resultValue  = bestValue;
+        resultLength = bestLength;
+        resultEdges  = bestEdges;
+        resultFirst  = bestFirst;
+    }
+
+    /**
+     * Finds a state in the transposition table.
+     * @return The slot of the state (or -1 if it is not present).
+     */
+    private int lookup(int state, long signature) {
+        int home = hash(state, signature);
+        for(int k = 0; k < PROBES; k++) {
+            int slot = (home + k) & (TABLE_SIZE - 1);
+            if(tableGeneration[slot] != generation) {
+                return -1;
+            }
+            if(tableState[slot] == state && tableSignature[slot] == signature) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Stores a state in the transposition table (overwriting an old entry if the neighbourhood is full).
+     */
+    private void store(int state, long signature, double value, int length, int edges, int first) {
+        int home = hash(state, signature);
+        int slot = home;
+        for(int k = 0; k < PROBES; k++) {
+            int s = (home + k) & (TABLE_SIZE - 1);
+            if(tableGeneration[s] != generation) {
+                slot = s;
+                break;
+            }
+        }
+        tableGeneration[slot] = generation;
+        tableState[slot]      = state;
+        tableSignature[slot]  = signature;
+        tableValue[slot]      = value;
+        tableLength[slot]     = length;
+        tableEdges[slot]      = edges;
+        tableFirst[slot]      = first;
+    }
+
+    private static int hash(int state, long signature) {
+        long h = (signature ^ (state * 0x9E3779B97F4A7C15L)) * 0xC2B2AE3D27D4EB4FL;
+        return (int) (h >>> 40) & (TABLE_SIZE - 1);
+    }
+
+    /**
+     * Prints how long planning takes with PrimitivePlanner and MemoizedPlanner on a network made by Generator,
+     * from a number of random cities, and checks that both choose the same cities.
+     * @param args   Optionally the number of cities of the network, the number of plans and the search depth
+     *               (defaults to 5000, 30 and MAX_DEPTH).
+     * @throws IOException   If the network could not be written.
+     */
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int plans = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : MAX_DEPTH;
+        Path file = Files.createTempFile("network", ".dat");
+        Generator generator = new Generator(1);
+        generator.setCities(size);
+        generator.setCountries(Math.max(1, size / 100));
+        generator.write(file.toString());
+        Game game = Game.fromFile(file.toString());
+        Files.delete(file);
+
+        List<City> all = new ArrayList<>();
+        for(Country country : game.getCountries()) {
+            all.addAll(country.getCities());
+        }
+        Random random = new Random(7);
+        List<City> cities = new ArrayList<>();
+        for(int k = 0; k < plans; k++) {
+            cities.add(all.get(random.nextInt(all.size())));
+        }
+
+        List<City> expected = new ArrayList<>();
+        for(Planner planner : new Planner[]{new PrimitivePlanner(), new MemoizedPlanner()}) {
+            for(int k = 0; k < Math.min(5, plans); k++) {   // warm up
+                planner.nextCity(cities.get(k), depth);
+            }
+            List<City> chosen = new ArrayList<>();
+            long total = 0, max = 0;
+            for(City c : cities) {
+                long time = System.nanoTime();
+                chosen.add(planner.nextCity(c, depth));
+                time = System.nanoTime() - time;
+                total += time;
+                max = Math.max(max, time);
+            }
+            if(expected.isEmpty()) {
+                expected = chosen;
+            }
+            System.out.printf("%-17s %d cities, depth %d: average %7.1f ms, slowest %7.1f ms  identical: %b%n",
+                    planner.getClass().getSimpleName() + ":", all.size(), depth, total / 1e6 / plans, max / 1e6,
+                    chosen.equals(expected));
+        }
+    }
+}
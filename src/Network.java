@@ -0,0 +1,251 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A frozen, int-indexed view of a road network in compressed sparse row form.
+ * Cities are numbered 0, 1, ..., size()-1, and the roads leaving city i are the edges first(i), ..., end(i)-1.
+ * Edges are stored in the same order as Country.getRoads(City) iterates them, so code which walks the edges
+ * behaves exactly like code which walks the roads.
+ * A Game builds its Network once loading has finished (see Game.getNetwork()).
+ */
+public class Network {
+
+    private City[] cities;              // City objects by index
+    private Map<City, Integer> index;   // Index of each City object
+    private int[] offsets;              // Roads of city i are offsets[i] .. offsets[i+1]-1
+    private int[] targets;              // Index of the city each road leads to
+    private int[] lengths;              // Length of each road
+    private long[] edgeKeys;            // Open-addressing table from (from, to) to the first edge between them
+    private int[] edgeValues;           // Edge stored in each slot of edgeKeys (or -1 for an empty slot)
+
+    private Network(List<City> cities, boolean assignIndices) {
+        this.cities = cities.toArray(new City[0]);
+        buildIndex(assignIndices);
+
+        offsets = new int[this.cities.length + 1];
+        int edges = 0;
+        for(int i = 0; i < this.cities.length; i++) {
+            offsets[i] = edges;
+            edges += roads(this.cities[i]).size();
+        }
+        offsets[this.cities.length] = edges;
+
+        targets = new int[edges];
+        lengths = new int[edges];
+        int e = 0;
+        for(City c : this.cities) {
+            for(Road r : roads(c)) {
+                targets[e] = index.get(r.getTo());
+                lengths[e] = r.getLength();
+                e++;
+            }
+        }
+        buildEdgeTable();
+    }
+
+    private Network(City[] cities, int[] offsets, int[] targets, int[] lengths) {
+        this.cities = cities;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.lengths = lengths;
+        buildIndex(true);
+        buildEdgeTable();
+    }
+
+    private void buildIndex(boolean assignIndices) {
+        index = new HashMap<>();
+        for(int i = 0; i < cities.length; i++) {
+            index.put(cities[i], i);
+            if(assignIndices) {
+                cities[i].setIndex(i);
+            }
+        }
+    }
+
+    private void buildEdgeTable() {
+        int edges = targets.length;
+        int capacity = Integer.highestOneBit(Math.max(2, 2 * edges)) << 1;
+        edgeKeys = new long[capacity];
+        edgeValues = new int[capacity];
+        Arrays.fill(edgeValues, -1);
+        for(int c = 0; c < cities.length; c++) {
+            for(int k = offsets[c]; k < offsets[c + 1]; k++) {
+                long key = key(c, targets[k]);
+                int slot = slot(key);
+                while(edgeValues[slot] >= 0 && edgeKeys[slot] != key) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                if(edgeValues[slot] < 0) {  // Keep the first (shortest) road if there are several
+                    edgeKeys[slot] = key;
+                    edgeValues[slot] = k;
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a Network of all cities reachable from a given City.
+     * Does not require the City to belong to a Game.
+     * @param start   The City to start from.
+     * @return        A Network containing 'start' (at index 0) and every city reachable from it.
+     */
+    public static Network of(City start) {
+        List<City> cities = new ArrayList<>();
+        Set<City> seen = new HashSet<>();
+        Deque<City> queue = new ArrayDeque<>();
+        seen.add(start);
+        queue.add(start);
+        while(!queue.isEmpty()) {
+            City c = queue.poll();
+            cities.add(c);
+            for(Road r : roads(c)) {
+                if(seen.add(r.getTo())) {
+                    queue.add(r.getTo());
+                }
+            }
+        }
+        return new Network(cities, false);
+    }
+
+    /**
+     * Creates a Network of all cities in a Game (ordered by country, then by city).
+     * Each City is told its index, so indexOf(City) is a constant-time array check.
+     * @param game   The Game.
+     * @return       A Network containing every city in the Game.
+     */
+    public static Network of(Game game) {
+        List<City> cities = new ArrayList<>();
+        for(Country country : game.getCountries()) {
+            cities.addAll(country.getCities());
+        }
+        return new Network(cities, true);
+    }
+
+    /**
+     * Creates a Network from its arrays (as stored by NetworkImage), and tells each City its index.
+     * The edges of each city must be in the order Country.getRoads(City) iterates them.
+     * @param cities    The cities.
+     * @param offsets   Roads of city i are the edges offsets[i] .. offsets[i+1]-1.
+     * @param targets   Index of the city each edge leads to.
+     * @param lengths   Length of each edge.
+     * @return          The Network.
+     */
+    static Network of(City[] cities, int[] offsets, int[] targets, int[] lengths) {
+        return new Network(cities, offsets, targets, lengths);
+    }
+
+    private static Set<Road> roads(City c) {
+        return c.getCountry().getRoads(c);
+    }
+
+    /**
+     * Gets the number of cities in this Network.
+     * @return   The number of cities.
+     */
+    public int size() {
+        return cities.length;
+    }
+
+    /**
+     * Gets the City with a given index.
+     * @param i   Index of the city.
+     * @return    The City object.
+     */
+    public City getCity(int i) {
+        return cities[i];
+    }
+
+    /**
+     * Gets the index of a given City.
+     * @param c   The City.
+     * @return    The index of 'c' (or -1 if it is not part of this Network).
+     */
+    public int indexOf(City c) {
+        int k = c.getIndex();
+        if(k >= 0 && k < cities.length && cities[k] == c) {
+            return k;
+        }
+        Integer i = index.get(c);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * Gets the number of roads leaving a given city.
+     * @param c   Index of the city.
+     * @return    The number of roads leaving 'c'.
+     */
+    public int degree(int c) {
+        return offsets[c + 1] - offsets[c];
+    }
+
+    /**
+     * Gets the first edge leaving a given city.
+     * @param c   Index of the city.
+     * @return    Index of the first edge leaving 'c'.
+     */
+    public int first(int c) {
+        return offsets[c];
+    }
+
+    /**
+     * Gets the end of the edges leaving a given city.
+     * @param c   Index of the city.
+     * @return    One past the index of the last edge leaving 'c'.
+     */
+    public int end(int c) {
+        return offsets[c + 1];
+    }
+
+    /**
+     * Finds the road between two cities in constant time.
+     * If there are several roads, the first one returned by Country.getRoads(City) is found.
+     * @param from   Index of the city the road starts in.
+     * @param to     Index of the city the road leads to.
+     * @return       Index of the edge (or -1 if there is no such road).
+     */
+    public int edge(int from, int to) {
+        long key = key(from, to);
+        int slot = slot(key);
+        while(edgeValues[slot] >= 0) {
+            if(edgeKeys[slot] == key) {
+                return edgeValues[slot];
+            }
+            slot = (slot + 1) & (edgeKeys.length - 1);
+        }
+        return -1;
+    }
+
+    private static long key(int from, int to) {
+        return ((long) from << 32) | (to & 0xFFFFFFFFL);
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (edgeKeys.length - 1);
+    }
+
+    /**
+     * Gets the city an edge leads to.
+     * @param e   Index of the edge.
+     * @return    Index of the city.
+     */
+    public int target(int e) {
+        return targets[e];
+    }
+
+    /**
+     * Gets the length of an edge.
+     * @param e   Index of the edge.
+     * @return    Length of the edge (in steps).
+     */
+    public int length(int e) {
+        return lengths[e];
+    }
+}
@@ -0,0 +1,339 @@
+import java.awt.Point;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A precompiled, binary image of a network file, which loads much faster than the text format.
+ * The image of 'network.dat' is 'network.img' (see imageOf). It is written by compile, and read by Game.fromFile
+ * (through read) whenever it is up to date.
+ *
+ * The image consists of a header followed by the payload. All numbers are big-endian ints unless noted otherwise.
+ *  - Header: magic, version, the length (long), last modification time (long) and CRC32 (long) of the network file
+ *    the image was compiled from, and the CRC32 (long) of the payload.
+ *  - Initial seed of the Game.
+ *  - String table: the number of strings, the length of the UTF-8 data, the offset of each string (plus one past
+ *    the last string) and the UTF-8 data itself, padded to a multiple of 4 bytes.
+ *  - Country table: the number of countries, the name (string) of each, and the index of the first city of each
+ *    (plus one past the last city). Countries are stored in the order of getCountries(), cities in the order of
+ *    Country.getCities(), i.e. in the order of the Network of the Game.
+ *  - City table: the number of cities, the name (string), initial value and GUI position (x, y) of each.
+ *    Cities without a position have x = Integer.MIN_VALUE.
+ *  - Edge arrays: the number of edges, the offsets, targets and lengths of the Network (see Network).
+ *
+ * An image is stale if the network file has changed since it was compiled: if the length differs, or the
+ * modification time differs and so does the CRC32 of the content. Stale or corrupt images are ignored.
+ */
+public class NetworkImage {
+
+    private static final int MAGIC = 0x4E54494D;    // "NTIM"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 40;
+    private static final int NO_POSITION = Integer.MIN_VALUE;
+
+    /**
+     * Gets the path of the image of a network file ('network.dat' has the image 'network.img').
+     * @param path   Path of the network file.
+     * @return       Path of its image.
+     */
+    public static String imageOf(String path) {
+        int dot = path.lastIndexOf('.');
+        if(dot > Math.max(path.lastIndexOf('/'), path.lastIndexOf(File.separatorChar))) {
+            path = path.substring(0, dot);
+        }
+        return path + ".img";
+    }
+
+    /**
+     * Compiles a network file into its image.
+     * @param path   Path of the network file.
+     * @throws IOException   If the network file could not be loaded, or the image could not be written.
+     */
+    public static void compile(String path) throws IOException {
+        Path source = Paths.get(path);
+        long modified = Files.getLastModifiedTime(source).toMillis();
+        byte[] bytes = Files.readAllBytes(source);
+        Settings settings = new Settings();
+        settings.setPersistent(false);
+        Game game = Game.load(new ByteArrayInputStream(bytes), settings);
+        if(game == null) {
+            throw new IOException("Unable to load " + path);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        write(game, bytes.length, modified, crc.getValue(), Paths.get(imageOf(path)));
+    }
+
+    /**
+     * Writes the image of a Game (to a temporary file which then replaces 'image').
+     * @param game       The Game (as loaded from the network file).
+     * @param length     The length of the network file.
+     * @param modified   The last modification time of the network file.
+     * @param hash       The CRC32 of the content of the network file.
+     * @param image      Path of the image.
+     */
+    private static void write(Game game, long length, long modified, long hash, Path image) throws IOException {
+        Network network = game.getNetwork();
+        List<Country> countries = game.getCountries();
+        Map<String, Integer> strings = new LinkedHashMap<>();
+
+        ByteBuffer payload = ByteBuffer.allocate(payloadSize(game, strings));
+        payload.putInt(game.getInitialSeed());
+
+        // String table
+        List<byte[]> data = new ArrayList<>();
+        int dataLength = 0;
+        for(String s : strings.keySet()) {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            data.add(b);
+            dataLength += b.length;
+        }
+        payload.putInt(strings.size());
+        payload.putInt(dataLength);
+        int offset = 0;
+        for(byte[] b : data) {
+            payload.putInt(offset);
+            offset += b.length;
+        }
+        payload.putInt(offset);
+        for(byte[] b : data) {
+            payload.put(b);
+        }
+        payload.position(payload.position() + padding(dataLength));
+
+        // Country table
+        payload.putInt(countries.size());
+        for(Country country : countries) {
+            payload.putInt(strings.get(country.getName()));
+        }
+        int first = 0;
+        for(Country country : countries) {
+            payload.putInt(first);
+            first += country.getCities().size();
+        }
+        payload.putInt(first);
+
+        // City table
+        payload.putInt(network.size());
+        for(int c = 0; c < network.size(); c++) {
+            City city = network.getCity(c);
+            Point p = game.getPosition(city);
+            payload.putInt(strings.get(city.getName()));
+            payload.putInt(city.getInitialValue());
+            payload.putInt(p == null ? NO_POSITION : p.x);
+            payload.putInt(p == null ? 0 : p.y);
+        }
+
+        // Edge arrays
+        int edges = network.size() == 0 ? 0 : network.end(network.size() - 1);
+        payload.putInt(edges);
+        for(int c = 0; c < network.size(); c++) {
+            payload.putInt(network.first(c));
+        }
+        payload.putInt(edges);
+        for(int e = 0; e < edges; e++) {
+            payload.putInt(network.target(e));
+        }
+        for(int e = 0; e < edges; e++) {
+            payload.putInt(network.length(e));
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.array(), 0, payload.capacity());
+
+        Path temporary = image.resolveSibling(image.getFileName() + ".tmp");
+        try(OutputStream stream = Files.newOutputStream(temporary)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(length);
+            out.writeLong(modified);
+            out.writeLong(hash);
+            out.writeLong(crc.getValue());
+            out.write(payload.array());
+            out.flush();
+        }
+        try {
+            Files.move(temporary, image, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch(AtomicMoveNotSupportedException e) {
+            Files.move(temporary, image, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Computes the size of the payload, and numbers the strings of a Game.
+     * @param game      The Game.
+     * @param strings   Receives the number of each distinct name.
+     * @return          The size of the payload (in bytes).
+     */
+    private static int payloadSize(Game game, Map<String, Integer> strings) {
+        Network network = game.getNetwork();
+        for(Country country : game.getCountries()) {
+            strings.putIfAbsent(country.getName(), strings.size());
+        }
+        for(int c = 0; c < network.size(); c++) {
+            strings.putIfAbsent(network.getCity(c).getName(), strings.size());
+        }
+        long dataLength = 0;
+        for(String s : strings.keySet()) {
+            dataLength += s.getBytes(StandardCharsets.UTF_8).length;
+        }
+        int countries = game.getCountries().size();
+        int cities = network.size();
+        int edges = cities == 0 ? 0 : network.end(cities - 1);
+        long size = 4L                                                          // seed
+                  + 8 + 4L * (strings.size() + 1) + dataLength + padding(dataLength)  // strings
+                  + 4 + 4L * countries + 4L * (countries + 1)                   // countries
+                  + 4 + 16L * cities                                            // cities
+                  + 4 + 4L * (cities + 1) + 8L * edges;                         // edges
+        if(size > Integer.MAX_VALUE - HEADER_SIZE) {
+            throw new IllegalArgumentException("The network is too large for an image");
+        }
+        return (int) size;
+    }
+
+    private static int padding(long length) {
+        return (int) (-length & 3);
+    }
+
+    /**
+     * Loads the image of a network file, if it exists and is up to date.
+     * @param path       Path of the network file.
+     * @param settings   The Settings of the Game (or 'null' to load them from 'settings.dat').
+     * @return           The Game (or 'null' if there is no image, or it is stale or corrupt).
+     */
+    public static Game read(String path, Settings settings) {
+        Path image = Paths.get(imageOf(path));
+        if(!Files.isRegularFile(image)) {
+            return null;
+        }
+        try(FileChannel channel = FileChannel.open(image, StandardOpenOption.READ)) {
+            if(channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            if(isStale(Paths.get(path), buffer.getLong(), buffer.getLong(), buffer.getLong())) {
+                return null;
+            }
+            long hash = buffer.getLong();
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if(crc.getValue() != hash) {
+                System.out.println("Ignoring corrupt network image " + image);
+                return null;
+            }
+            return read(buffer, settings);
+        } catch(IOException | RuntimeException e) {
+            System.out.println("Unable to read network image " + image + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Determines whether a network file has changed since its image was compiled.
+     * The content is only hashed if the length is unchanged, but the modification time is not.
+     */
+    private static boolean isStale(Path source, long length, long modified, long hash) throws IOException {
+        if(!Files.isRegularFile(source)) {
+            return false;   // An image without its network file is all there is
+        }
+        if(Files.size(source) != length) {
+            return true;
+        }
+        if(Files.getLastModifiedTime(source).toMillis() == modified) {
+            return false;
+        }
+        try(FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            CRC32 crc = new CRC32();
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            return crc.getValue() != hash;
+        }
+    }
+
+    /**
+     * Builds the Game stored in the payload of an image.
+     * The roads of each Country are only created when they are first asked for (see Country.deferRoads),
+     * since the Network of the Game is built straight from the edge arrays.
+     */
+    private static Game read(ByteBuffer buffer, Settings settings) {
+        Game game = new Game(buffer.getInt(), settings);
+
+        String[] strings = new String[buffer.getInt()];
+        byte[] data = new byte[buffer.getInt()];
+        int[] offsets = ints(buffer, strings.length + 1);
+        buffer.get(data);
+        buffer.position(buffer.position() + padding(data.length));
+        for(int i = 0; i < strings.length; i++) {
+            strings[i] = new String(data, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+        }
+
+        Country[] countries = new Country[buffer.getInt()];
+        int[] countryNames = ints(buffer, countries.length);
+        int[] firstCity = ints(buffer, countries.length + 1);
+
+        City[] cities = new City[buffer.getInt()];
+        int[] table = ints(buffer, 4 * cities.length);
+        for(int k = 0; k < countries.length; k++) {
+            countries[k] = new Country(strings[countryNames[k]]);
+            game.addCountry(countries[k]);
+            for(int c = firstCity[k]; c < firstCity[k + 1]; c++) {
+                cities[c] = new City(strings[table[4 * c]], table[4 * c + 1], countries[k]);
+                countries[k].addCity(cities[c]);
+                if(table[4 * c + 2] != NO_POSITION) {
+                    game.putPosition(cities[c], new Point(table[4 * c + 2], table[4 * c + 3]));
+                }
+            }
+        }
+
+        int edges = buffer.getInt();
+        int[] first = ints(buffer, cities.length + 1);
+        int[] targets = ints(buffer, edges);
+        int[] lengths = ints(buffer, edges);
+        Network network = Network.of(cities, first, targets, lengths);
+        for(Country country : countries) {
+            country.deferRoads(network);
+        }
+        game.finishLoading(network);
+        return game;
+    }
+
+    private static int[] ints(ByteBuffer buffer, int n) {
+        int[] values = new int[n];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + 4 * n);
+        return values;
+    }
+
+    /**
+     * Compiles network files into images.
+     * @param args   The network files to compile (defaults to 'network.dat').
+     */
+    public static void main(String[] args) throws IOException {
+        for(String path : args.length > 0 ? args : new String[]{"network.dat"}) {
+            long time = System.nanoTime();
+            compile(path);
+            System.out.printf("%s compiled to %s in %.1f ms%n", path, imageOf(path), (System.nanoTime() - time) / 1e6);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Tests that a NetworkImage loads the same Game as its network file, and that a stale or corrupt image is ignored
+ * (so Game.fromFile falls back to the network file).
+ */
+public class NetworkImageTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Settings settings;
+    private String network;     // Path of a network made by Generator
+    private Path image;         // Path of its image
+
+    @Before
+    public void setUp() throws IOException
+    {
+        settings = new Settings(new boolean[]{true, true, true}, 20, 20, 10, 50, 2);
+        settings.setPersistent(false);
+        network = folder.getRoot().toPath().resolve("network.dat").toString();
+        Generator generator = new Generator(9);
+        generator.setCities(300);
+        generator.setCountries(5);
+        generator.write(network);
+        NetworkImage.compile(network);
+        image = Paths.get(NetworkImage.imageOf(network));
+    }
+
+    /**
+     * Tests that the image gives the same countries, cities, positions and roads as the network file.
+     */
+    @Test
+    public void imageEqualsText() throws IOException
+    {
+        Game loaded = NetworkImage.read(network, settings);
+        assertNotNull("the image is up to date", loaded);
+        assertEquals(describe(text()), describe(loaded));
+        assertEquals(describe(text()), describe(Game.fromFile(network, settings)));
+    }
+
+    /**
+     * Tests that an image is still used when only the modification time of the network file has changed.
+     */
+    @Test
+    public void touchedFileKeepsImage() throws IOException
+    {
+        Path source = Paths.get(network);
+        Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 10000));
+        assertNotNull("the content is unchanged", NetworkImage.read(network, settings));
+    }
+
+    /**
+     * Tests that an image is ignored when the network file has another length.
+     */
+    @Test
+    public void longerFileMakesImageStale() throws IOException
+    {
+        change("City C0.0 ", "City C0.0 1");
+        assertNull(NetworkImage.read(network, settings));
+        assertEquals(describe(text()), describe(Game.fromFile(network, settings)));
+    }
+
+    /**
+     * Tests that an image is ignored when the network file has the same length, but another content
+     * (found by the CRC32, since the modification time has changed).
+     */
+    @Test
+    public void changedFileMakesImageStale() throws IOException
+    {
+        String content = new String(Files.readAllBytes(Paths.get(network)), StandardCharsets.UTF_8);
+        String line = content.substring(content.indexOf("City C0.0 "), content.indexOf('\n', content.indexOf("City C0.0 ")));
+        String value = line.substring("City C0.0 ".length());
+        String other = value.charAt(0) == '9' ? "1" + value.substring(1) : (char) (value.charAt(0) + 1) + value.substring(1);
+        change(line, "City C0.0 " + other);
+        assertEquals(Files.size(Paths.get(network)), content.getBytes(StandardCharsets.UTF_8).length);
+        assertNull(NetworkImage.read(network, settings));
+        assertEquals(describe(text()), describe(Game.fromFile(network, settings)));
+    }
+
+    /**
+     * Tests that an image whose payload has been damaged is ignored.
+     */
+    @Test
+    public void corruptImageIsIgnored() throws IOException
+    {
+        byte[] bytes = Files.readAllBytes(image);
+        bytes[bytes.length / 2] ^= 0x10;
+        Files.write(image, bytes);
+        assertNull(NetworkImage.read(network, settings));
+        assertEquals(describe(text()), describe(Game.fromFile(network, settings)));
+    }
+
+    /**
+     * Replaces the first occurrence of a string in the network file, and moves its modification time forward.
+     */
+    private void change(String from, String to) throws IOException
+    {
+        Path source = Paths.get(network);
+        long modified = Files.getLastModifiedTime(source).toMillis();
+        String content = new String(Files.readAllBytes(source), StandardCharsets.UTF_8);
+        int at = content.indexOf(from);
+        assertTrue(from + " is in the network", at >= 0);
+        content = content.substring(0, at) + to + content.substring(at + from.length());
+        Files.write(source, content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(source, FileTime.fromMillis(modified + 10000));
+    }
+
+    /**
+     * Loads the network file as text.
+     */
+    private Game text() throws IOException
+    {
+        try(InputStream in = Files.newInputStream(Paths.get(network))) {
+            return Game.load(in, settings);
+        }
+    }
+
+    /**
+     * Describes the seed, the countries and cities (with their values and positions), and the roads of a Game.
+     */
+    private static String describe(Game game)
+    {
+        StringBuilder s = new StringBuilder("Game " + game.getInitialSeed() + "\n");
+        for(Country country : game.getCountries()) {
+            s.append(country.getName()).append(":");
+            for(City c : country.getCities()) {
+                s.append(' ').append(c.getName()).append('=').append(c.getValue()).append('/')
+                 .append(c.getInitialValue()).append('@').append(game.getPosition(c));
+            }
+            s.append('\n');
+        }
+        Network network = game.getNetwork();
+        for(int c = 0; c < network.size(); c++) {
+            s.append(network.getCity(c).getName()).append(" ->");
+            for(int e = network.first(c); e < network.end(c); e++) {
+                s.append(' ').append(network.getCity(network.target(e)).getName()).append(':').append(network.length(e));
+            }
+            s.append('\n');
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.Arrays;
+
+/**
+ * Base class for planners which search the int-indexed Network instead of the City objects.
+ * Keeps track of the Network, a snapshot of the city values and how many times each city is visited on the current path,
+ * and scores paths exactly like PlayerPath does.
+ */
+public abstract class NetworkPlanner implements Planner {
+
+    /** How large the penalty is for choosing same city twice (same as PlayerPath) */
+    protected static final double IMPULSIVENESS = 1.10;
+
+    protected Network network;      // The network currently planned on
+    protected int[] visits;         // How many times each city is visited on the current path
+    protected int[] values;         // Value of each city when the search started
+
+    private double[] pow2, powImpulsiveness; // Denominators used by PlayerPath
+
+    /**
+     * Creates a new NetworkPlanner which searches at most MAX_DEPTH steps ahead.
+     */
+    protected NetworkPlanner() {
+        this(MAX_DEPTH);
+    }
+
+    /**
+     * Creates a new NetworkPlanner.
+     * @param maxDepth   The maximum number of steps any search will look ahead.
+     */
+    protected NetworkPlanner(int maxDepth) {
+        pow2 = new double[maxDepth + 2];
+        powImpulsiveness = new double[maxDepth + 2];
+        for(int i = 0; i < pow2.length; i++) {
+            pow2[i] = Math.pow(2, i);
+            powImpulsiveness[i] = Math.pow(IMPULSIVENESS, i);
+        }
+    }
+
+    /**
+     * Prepares a new search from a given city.
+     * Makes sure the Network contains the city (using the Network of its Game, if it has one), takes a snapshot of all city values and marks the city as visited once.
+     * @param c   The city to plan from.
+     * @return    Index of 'c' in the Network.
+     */
+    protected int start(City c) {
+        Game game = c.getCountry().getGame();
+        Network current = game == null ? null : game.getNetwork();
+        if(network == null || (current != null && network != current) || network.indexOf(c) < 0) {
+            network = current != null ? current : Network.of(c);
+            visits = new int[network.size()];
+            values = new int[network.size()];
+            networkChanged();
+        }
+        for(int i = 0; i < values.length; i++) {
+            values[i] = network.getCity(i).getValue();
+        }
+        int root = network.indexOf(c);
+        Arrays.fill(visits, 0);
+        visits[root] = 1;
+        return root;
+    }
+
+    /**
+     * Gets the best path found by the last call to nextCity.
+     * The buffer may be reused by the next call, so it must be copied to be kept.
+     * @return The best path (as edges in the Network returned by getNetwork()).
+     */
+    public abstract PathBuffer getPath();
+
+    /**
+     * Gets the Network the last path refers to.
+     * @return The Network (or 'null' if nothing has been planned yet).
+     */
+    public Network getNetwork() {
+        return network;
+    }
+
+    /**
+     * Called whenever a new Network has been created (subclasses may allocate per-city arrays here).
+     */
+    protected void networkChanged() {
+    }
+
+    /**
+     * Gets an upper bound on what arriving to a city can contribute to the value of any path.
+     * The actual contribution is further divided by a power of IMPULSIVENESS, so this never underestimates it.
+     * @param to   Index of the city arrived to.
+     * @param v    How many times 'to' is visited (including this arrival).
+     * @return     An upper bound on the contribution.
+     */
+    protected double contributionBound(int to, int v) {
+        return Math.max(0, values[to]) / pow2[v - 1];
+    }
+
+    /**
+     * Computes the value of a path consisting of a road followed by a sub path.
+     * Uses the same order of floating point operations as PlayerPath.addRoad, so results are identical.
+     * @param subValue   The value of the sub path.
+     * @param subEdges   The number of roads in the sub path.
+     * @param from       Index of the city the road starts in.
+     * @param to         Index of the city the road leads to.
+     * @param v          How many times 'to' is visited (including this road).
+     * @return           The value of the combined path.
+     */
+    protected double value(double subValue, int subEdges, int from, int to, int v) {
+        double value = subValue;
+        if(subEdges == 0) {
+            value += values[from] / (pow2[v - 1] * powImpulsiveness[0]);
+        }
+        value += values[to] / (pow2[v - 1] * powImpulsiveness[subEdges + 1]);
+        return value;
+    }
+}
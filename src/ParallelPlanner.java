@@ -0,0 +1,307 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Planner which splits the first levels of the depth-first search into tasks on a ForkJoinPool.
+ * Below the split depth each task searches sequentially like PrimitivePlanner.
+ *
+ * All tasks share the value of the best path found so far through a road from the start city. Each city along a path
+ * picks the rest of the path with the largest value from there, and how much the cities before it add depends on the
+ * length of that rest (see NetworkPlanner.value), so cutting a sub tree deeper down can change which path a city
+ * picks, and thereby the result. Therefore only whole roads from the start city are skipped: once an upper bound on
+ * the value of any path starting with a road is strictly less than the best value so far, the search of that road
+ * stops (wherever it has got to) and its result is discarded. The path chosen through such a road is worse than the
+ * best one, so it would not have been picked anyway. The value is only offered when the search of a road has
+ * finished without stopping, so it is exact, and the results are combined in road order. Thus the result is identical
+ * to the sequential search regardless of the number of threads or the order in which tasks finish.
+ */
+public class ParallelPlanner extends NetworkPlanner {
+
+    private ForkJoinPool pool;      // Pool the tasks are run on
+    private int splitDepth;         // Number of levels which are split into tasks
+    private AtomicLong best;        // Value of the best complete path so far (as bits of a non-negative double)
+    private double maxValue;        // Largest city value when the search started
+    private int minLength;          // Shortest road in the network
+    private PathBuffer path;        // Best path found by the last call
+
+    /**
+     * Creates a new ParallelPlanner using all available processors, which splits the first two levels.
+     */
+    public ParallelPlanner() {
+        this(Runtime.getRuntime().availableProcessors(), 2);
+    }
+
+    /**
+     * Creates a new ParallelPlanner.
+     * @param threads      The number of worker threads.
+     * @param splitDepth   The number of levels of the search tree to split into tasks (at least 1).
+     */
+    public ParallelPlanner(int threads, int splitDepth) {
+        pool = new ForkJoinPool(threads);
+        this.splitDepth = Math.max(1, splitDepth);
+        best = new AtomicLong();
+    }
+
+    @Override
+    public City nextCity(City c, int n) {
+        int root = start(c);
+        maxValue = 0;
+        for(int value : values) {
+            maxValue = Math.max(maxValue, value);
+        }
+        best.set(Double.doubleToLongBits(0));
+
+        path = pool.invoke(new SearchTask(root, n, 0, visits.clone(), Double.POSITIVE_INFINITY, -1, 0));
+        if(path.isEmpty()) {
+            return c;
+        }
+        return network.getCity(network.target(path.getEdge(0)));
+    }
+
+    @Override
+    public PathBuffer getPath() {
+        return path;
+    }
+
+    @Override
+    protected void networkChanged() {
+        minLength = Integer.MAX_VALUE;
+        for(int c = 0; c < network.size(); c++) {
+            for(int e = network.first(c); e < network.end(c); e++) {
+                minLength = Math.min(minLength, network.length(e));
+            }
+        }
+    }
+
+    /**
+     * Shuts down the worker threads of this planner.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Gets an upper bound on the value of any path starting with a road from the start city.
+     * @param to   Index of the city the road leads to.
+     * @param v    How many times 'to' is visited (including this road).
+     * @param n    The number of steps remaining after the road.
+     * @return     The bound (the city arrived to, one for each further road, and one for the start city).
+     */
+    private double bound(int to, int v, int n) {
+        return contributionBound(to, v) + (n / minLength + 1) * maxValue;
+    }
+
+    /**
+     * Determines whether the search of a road from the start city can stop.
+     * @param bound   Upper bound on the value of any path starting with the road (see bound(..)).
+     * @return        True if no path starting with the road can be as good as the best path so far
+     *                (with some slack for rounding).
+     */
+    private boolean prune(double bound) {
+        return bound * (1 + 1e-9) < Double.longBitsToDouble(best.get());
+    }
+
+    /**
+     * Records the value of a complete path.
+     * @param value The value of a path starting in the root.
+     */
+    private void offer(double value) {
+        long bits = Double.doubleToLongBits(value);
+        long current;
+        while(value > Double.longBitsToDouble(current = best.get())) {
+            if(best.compareAndSet(current, bits)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finds the best path from a city in the top levels of the search tree.
+     */
+    private class SearchTask extends RecursiveTask<PathBuffer> {
+
+        private static final long serialVersionUID = 1L;
+
+        private int c, n, depth, parent, v;
+        private int[] visits;
+        private double bound;
+
+        /**
+         * @param c        Index of the city to travel from.
+         * @param i        The number of steps remaining.
+         * @param depth    The number of roads taken so far.
+         * @param visits   Visit counters of the path so far (owned by this task).
+         * @param bound    Upper bound on the value of any path starting with the same road from the start city.
+         * @param parent   Index of the city this task was reached from (only used at depth 1).
+         * @param v        How many times 'c' is visited (only used at depth 1).
+         */
+        SearchTask(int c, int i, int depth, int[] visits, double bound, int parent, int v) {
+            this.c = c;
+            this.n = Math.min(i, MAX_DEPTH);
+            this.depth = depth;
+            this.visits = visits;
+            this.bound = bound;
+            this.parent = parent;
+            this.v = v;
+        }
+
+        /**
+         * @return   The best path from 'c' (or 'null' if the search of the road from the start city was stopped,
+         *           in which case the path is not the best one at depth 1, and may be incomplete below).
+         */
+        @Override
+        protected PathBuffer compute() {
+            if(prune(bound)) {
+                return null;
+            }
+            PathBuffer result;
+            if(depth < splitDepth) {
+                result = split();
+            } else {
+                Worker worker = new Worker(visits, bound);
+                worker.search(c, n, 0);
+                result = new PathBuffer(MAX_DEPTH + 1);
+                result.copy(worker.paths[0]);
+            }
+            if(result == null || prune(bound)) {
+                // The best value only grows, so nothing below was stopped unless this is true
+                return null;
+            }
+            if(depth == 1) {
+                offer(value(result.getValue(), result.size(), parent, c, v));
+            }
+            return result;
+        }
+
+        private PathBuffer split() {
+            PathBuffer result = new PathBuffer(MAX_DEPTH + 1);
+            List<SearchTask> tasks = new ArrayList<>();
+            List<Integer> edges = new ArrayList<>();
+            for(int e = network.first(c); e < network.end(c); e++) {
+                int length = network.length(e);
+                if(length > n) {
+                    continue;
+                }
+                int to = network.target(e);
+                int[] next = visits.clone();
+                int w = ++next[to];
+                double limit = depth == 0 ? bound(to, w, n - length) : bound;
+                tasks.add(new SearchTask(to, n - length, depth + 1, next, limit, c, w));
+                edges.add(e);
+            }
+            invokeAll(tasks);
+
+            for(int k = 0; k < tasks.size(); k++) {
+                int e = edges.get(k);
+                SearchTask task = tasks.get(k);
+                PathBuffer sub = task.join();
+                if(sub == null) {
+                    if(depth == 0) {
+                        continue;
+                    }
+                    return null;
+                }
+                double value = value(sub.getValue(), sub.size(), c, task.c, task.v);
+                int newLength = sub.getLength() + network.length(e);
+                if(value > result.getValue() || (value == result.getValue() && newLength < result.getLength())) {
+                    result.set(e, sub, newLength, value);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Sequential search below the split depth (same as PrimitivePlanner, but stops when the bound is hit).
+     */
+    private class Worker {
+
+        private int[] visits;
+        private double bound;       // Upper bound on the value of any path starting with the same road
+        private PathBuffer[] paths;
+
+        Worker(int[] visits, double bound) {
+            this.visits = visits;
+            this.bound = bound;
+            paths = new PathBuffer[MAX_DEPTH + 2];
+            for(int d = 0; d < paths.length; d++) {
+                paths[d] = new PathBuffer(MAX_DEPTH + 1);
+            }
+        }
+
+        void search(int c, int i, int depth) {
+            int n = Math.min(i, MAX_DEPTH);
+            PathBuffer best = paths[depth];
+            PathBuffer sub = paths[depth + 1];
+            best.clear();
+            if(prune(bound)) {
+                return;
+            }
+            for(int e = network.first(c); e < network.end(c); e++) {
+                int length = network.length(e);
+                if(length > n) {
+                    continue;
+                }
+                int to = network.target(e);
+                int v = ++visits[to];
+                search(to, n - length, depth + 1);
+                visits[to]--;
+
+                double value = value(sub.getValue(), sub.size(), c, to, v);
+                int newLength = sub.getLength() + length;
+                if(value > best.getValue() || (value == best.getValue() && newLength < best.getLength())) {
+                    best.set(e, sub, newLength, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Prints a speedup report for planning from every city of a network at 1, 2, 4 and 8 threads.
+     * Also checks that the results are identical to those of PrimitivePlanner.
+     * Thread counts above the number of processors are marked, since they cannot show a speedup.
+     * @param args   Optionally the network file and search depth (defaults to 'network.dat' and MAX_DEPTH).
+     */
+    public static void main(String[] args) {
+        Game game = Game.fromFile(args.length > 0 ? args[0] : "network.dat");
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : MAX_DEPTH;
+        List<City> cities = new ArrayList<>();
+        for(Country country : game.getCountries()) {
+            cities.addAll(country.getCities());
+        }
+
+        PrimitivePlanner reference = new PrimitivePlanner();
+        List<City> expected = new ArrayList<>();
+        long sequential = System.nanoTime();
+        for(City c : cities) {
+            expected.add(reference.nextCity(c, depth));
+        }
+        sequential = System.nanoTime() - sequential;
+        System.out.printf("PrimitivePlanner: %8.1f ms%n", sequential / 1e6);
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        long base = 0;
+        for(int threads : new int[]{1, 2, 4, 8}) {
+            ParallelPlanner planner = new ParallelPlanner(threads, 2);
+            for(City c : cities) {   // warm up
+                planner.nextCity(c, depth);
+            }
+            long time = System.nanoTime();
+            boolean identical = true;
+            for(int k = 0; k < cities.size(); k++) {
+                identical &= planner.nextCity(cities.get(k), depth).equals(expected.get(k));
+            }
+            time = System.nanoTime() - time;
+            planner.shutdown();
+            if(threads == 1) {
+                base = time;
+            }
+            System.out.printf("%d thread(s):     %8.1f ms  speedup %.2f  identical: %b%s%n",
+                    threads, time / 1e6, base / (double) time, identical,
+                    threads > processors ? "  (only " + processors + " processor(s))" : "");
+        }
+    }
+}
@@ -0,0 +1,65 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Tests that ParallelPlanner chooses exactly what PrimitivePlanner chooses, on random networks made by Generator.
+ */
+public class ParallelPlannerTest
+{
+    /**
+     * Plans from random cities with random numbers of steps, on networks whose city values have been changed at random
+     * (like during a game), with different numbers of threads and split depths.
+     */
+    @Test
+    public void sameAsPrimitivePlanner() throws IOException
+    {
+        Random random = new Random(42);
+        for(int seed = 0; seed < 12; seed++) {
+            Game game = generate(seed, 60 + 20 * seed);
+            List<City> cities = new ArrayList<>();
+            for(Country country : game.getCountries()) {
+                cities.addAll(country.getCities());
+            }
+            for(City c : cities) {
+                if(random.nextInt(3) == 0) {
+                    c.changeValue(-random.nextInt(c.getValue() + 1));
+                }
+            }
+
+            PrimitivePlanner reference = new PrimitivePlanner();
+            ParallelPlanner planner = new ParallelPlanner(1 + seed % 4, 1 + seed % 3);
+            try {
+                for(int k = 0; k < 15; k++) {
+                    City c = cities.get(random.nextInt(cities.size()));
+                    int n = 1 + random.nextInt(Planner.MAX_DEPTH);
+                    String message = "network " + seed + ", from " + c.getName() + " with " + n + " steps";
+                    assertEquals(message, reference.nextCity(c, n), planner.nextCity(c, n));
+                    assertEquals(message, reference.getPath().getValue(), planner.getPath().getValue(), 0);
+                }
+            } finally {
+                planner.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Generates a network with a given seed and number of cities.
+     */
+    static Game generate(long seed, int cities) throws IOException
+    {
+        Generator generator = new Generator(seed);
+        generator.setCities(cities);
+        generator.setCountries(2 + (int) (seed % 4));
+        StringWriter out = new StringWriter();
+        generator.write(out);
+        Settings settings = new Settings(new boolean[]{true, true, true}, 20, 20, 10, 50, 2);
+        settings.setPersistent(false);
+        return Game.load(new ByteArrayInputStream(out.toString().getBytes(StandardCharsets.UTF_8)), settings);
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * A preallocated path of Network edges, used instead of PlayerPath by the primitive planners.
+ * Edges are stored in travel order (the first road to take is at index 0).
+ */
+public class PathBuffer {
+
+    /** The edges of this path (only the first 'size' are used) */
+    private int[] edges;
+
+    /** The number of edges in this path */
+    private int size;
+
+    /** The length (in steps) of the path */
+    private int length;
+
+    /** The estimated value of the path */
+    private double value;
+
+    /**
+     * Creates a new, empty PathBuffer.
+     * @param capacity The maximum number of edges this buffer can hold.
+     */
+    public PathBuffer(int capacity) {
+        edges = new int[capacity];
+    }
+
+    /**
+     * Empties this path.
+     */
+    public void clear() {
+        size = 0;
+        length = 0;
+        value = 0;
+    }
+
+    /**
+     * Replaces this path by a road followed by another path.
+     * @param edge The first edge of the new path.
+     * @param suffix The path following 'edge' (may not be this buffer).
+     * @param length The length of the new path.
+     * @param value The value of the new path.
+     */
+    public void set(int edge, PathBuffer suffix, int length, double value) {
+        edges[0] = edge;
+        System.arraycopy(suffix.edges, 0, edges, 1, suffix.size);
+        size = suffix.size + 1;
+        this.length = length;
+        this.value = value;
+    }
+
+    /**
+     * Adds a road to the end of this path (the value is left unchanged).
+     * @param edge The edge to add.
+     * @param length The length of the edge.
+     */
+    public void append(int edge, int length) {
+        edges[size++] = edge;
+        this.length += length;
+    }
+
+    /**
+     * Changes the value of this path.
+     * @param value The new value.
+     */
+    public void setValue(double value) {
+        this.value = value;
+    }
+
+    /**
+     * Copies another path into this buffer.
+     * @param other The path to copy.
+     */
+    public void copy(PathBuffer other) {
+        System.arraycopy(other.edges, 0, edges, 0, other.size);
+        size = other.size;
+        length = other.length;
+        value = other.value;
+    }
+
+    /**
+     * Gets an edge of this path.
+     * @param i The position of the edge (0 is the first road to take).
+     * @return Index of the edge in the Network.
+     */
+    public int getEdge(int i) {
+        return edges[i];
+    }
+
+    /**
+     * Returns the number of edges in this path.
+     * @return the number of edges in this path.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the length (in units) of this path.
+     * @return the length (in units) of this path.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the value (in €) of this path.
+     * @return the value (in €) of this path.
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Determines whether or not this PathBuffer is empty.
+     * @return True, if this instance is empty; and false otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
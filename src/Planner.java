@@ -0,0 +1,17 @@
+/**
+ * A Planner decides where a SmartPlayer should travel next.
+ * Different planners trade planning time for quality, but all of them score paths the same way as PlayerPath.
+ */
+public interface Planner {
+
+    /** The maximum depth to search. */
+    int MAX_DEPTH = 26;
+
+    /**
+     * Finds the city which in the long run generates most value.
+     * @param c   The city to travel from.
+     * @param n   The number of steps remaining.
+     * @return    The city to travel to now (or 'c' if staying is best).
+     */
+    City nextCity(City c, int n);
+}
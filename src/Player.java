@@ -27,10 +27,11 @@ public class Player implements Comparable<Player> {
 	}
 	
 	/**
-	 * Resets this player (sets its money back to 0).
+	 * Resets this player (sets its money back to 0, and forgets the pending position of the previous game).
 	 */
 	public void reset() {
 		money = 0;
+		pending = null;
 	}
 	
 	/**
@@ -46,6 +47,55 @@ public class Player implements Comparable<Player> {
 		}
 	}
 	
+	/**
+	 * Appends the state of this Player (its positions and money) to a GameState.
+	 * Subclasses with more state which affects how they play must override this and restoreState.
+	 * @param state The GameState to append to.
+	 * @param network The Network of the Game.
+	 */
+	public void saveState(GameState state, Network network) {
+		savePosition(state, network, pos);
+		savePosition(state, network, pending);
+		state.putInt(money);
+	}
+	
+	/**
+	 * Restores the state of this Player, as appended by saveState.
+	 * The Position objects of this Player are reused when possible, so restoring does usually not allocate.
+	 * @param state The GameState to read from.
+	 * @param network The Network of the Game.
+	 */
+	public void restoreState(GameState state, Network network) {
+		pos = restorePosition(state, network, pos);
+		pending = restorePosition(state, network, pending);
+		money = state.getInt();
+	}
+	
+	private static void savePosition(GameState state, Network network, Position p) {
+		if(p == null) {
+			state.putInt(-1);
+			return;
+		}
+		state.putCity(network, p.getFrom());
+		state.putCity(network, p.getTo());
+		state.putInt(p.getDistance());
+		state.putInt(p.getTotal());
+	}
+	
+	private static Position restorePosition(GameState state, Network network, Position reuse) {
+		City from = state.getCity(network);
+		if(from == null) {
+			return null;
+		}
+		City to = state.getCity(network);
+		int distance = state.getInt(), total = state.getInt();
+		if(reuse == null) {
+			return new Position(from, to, distance, total);
+		}
+		reuse.set(from, to, distance, total);
+		return reuse;
+	}
+	
 	/**
 	 * Gets how much money this Player has collected.
 	 * @return An integer representing how much money this Player has collected (in €).
@@ -116,10 +166,10 @@ public class Player implements Comparable<Player> {
 	public void travelTo(City c) {
 		City playerCity = getPosition().getTo();
 		if(getPosition().hasArrived()) {
-			for(Road r : getCountry().getRoads(playerCity)){
-				if(r.getTo().equals(c)) {
-					setPosition(getCountry().readyToTravel(playerCity, c));
-				}
+			Network network = getCountry().getGame().getNetwork();
+			int to = network.indexOf(c);
+			if(to >= 0 && network.edge(network.indexOf(playerCity), to) >= 0) {
+				setPosition(getCountry().readyToTravel(playerCity, c));
 			}
 		} else if(c.equals(getPosition().getFrom())) {
 			turnAround();
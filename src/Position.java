@@ -11,6 +11,18 @@ public class Position {
         this.distance = distance;
     }
 
+    Position(City from, City to, int distance, int total) {
+        this(from, to, distance);
+        this.total = total;
+    }
+
+    void set(City from, City to, int distance, int total) {
+        this.from = from;
+        this.to = to;
+        this.distance = distance;
+        this.total = total;
+    }
+
     public City getFrom() {
         return from;
     }
@@ -35,6 +47,10 @@ public class Position {
         return false;
     }
 
+    public void move(int steps) {
+        distance = Math.max(0, distance - steps);
+    }
+
     public void turnAround() {
         City temp = from;
         from = to;
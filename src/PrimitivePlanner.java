@@ -0,0 +1,64 @@
+/**
+ * A Planner which performs the same depth-first search as DepthFirstPlanner, but without allocating.
+ * Cities are int indices into a Network, visit counters live in a single int[] which is undone when the search returns,
+ * and the best path at each depth is kept in a preallocated PathBuffer instead of a new PlayerPath.
+ */
+public class PrimitivePlanner extends NetworkPlanner {
+
+    /** paths[d] holds the best path found from the city at depth d */
+    private PathBuffer[] paths;
+
+    /**
+     * Creates a new PrimitivePlanner.
+     */
+    public PrimitivePlanner() {
+        paths = new PathBuffer[MAX_DEPTH + 2];
+        for(int d = 0; d < paths.length; d++) {
+            paths[d] = new PathBuffer(MAX_DEPTH + 1);
+        }
+    }
+
+    @Override
+    public City nextCity(City c, int n) {
+        int root = start(c);
+        search(root, n, 0);
+        if(paths[0].isEmpty()) {
+            return c;
+        }
+        return network.getCity(network.target(paths[0].getEdge(0)));
+    }
+
+    @Override
+    public PathBuffer getPath() {
+        return paths[0];
+    }
+
+    /**
+     * Finds the path which provides maximum value, and stores it in paths[depth].
+     * @param c       Index of the city to travel from.
+     * @param i       The number of steps remaining.
+     * @param depth   The number of roads taken so far.
+     */
+    private void search(int c, int i, int depth) {
+        int n = Math.min(i, MAX_DEPTH);
+        PathBuffer best = paths[depth];
+        PathBuffer sub = paths[depth + 1];
+        best.clear();
+        for(int e = network.first(c); e < network.end(c); e++) {
+            int length = network.length(e);
+            if(length > n) {
+                continue;
+            }
+            int to = network.target(e);
+            int v = ++visits[to];
+            search(to, n - length, depth + 1);
+            visits[to]--;
+
+            double value = value(sub.getValue(), sub.size(), c, to, v);
+            int newLength = sub.getLength() + length;
+            if(value > best.getValue() || (value == best.getValue() && newLength < best.getLength())) {
+                best.set(e, sub, newLength, value);
+            }
+        }
+    }
+}
@@ -1,6 +1,4 @@
 import java.awt.Color;
-import java.util.List;
-import java.util.Set;
 /**
  * Models a player which randomly chooses the next city to travel to.
  * @author Nikolaj Ignatieff Schwartzbach. 
@@ -21,12 +19,10 @@ public class RandomPlayer extends Player {
         super.step();
         if(getPosition().hasArrived()) {
             City city = getPosition().getTo();
-            Set<Road> roads = getCountry().getRoads(city);
-            roads.stream()
-                 .skip(getCountry().getGame().getRandom().nextInt(roads.size()))
-                 .limit(1)
-                 .map(r -> getCountry().readyToTravel(city,r.getTo()))
-                 .forEach(this::setPosition);
+            Network network = getCountry().getGame().getNetwork();
+            int c = network.indexOf(city);
+            int e = network.first(c) + getCountry().getGame().getRandom().nextInt(network.degree(c));
+            setPosition(getCountry().readyToTravel(city, network.getCity(network.target(e))));
         }
     }
 
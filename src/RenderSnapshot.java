@@ -0,0 +1,229 @@
+import java.awt.Color;
+import java.util.List;
+
+/**
+ * An immutable copy of the parts of a Game which are drawn by the GUI: the steps left, the value of every city,
+ * and the name, colour, money and position of every player.
+ * Snapshots are made by the thread which plays the Game (see Simulation), and can then be read by any thread
+ * without locking, while the Game goes on.
+ * A snapshot also knows when the step it shows was taken and when the next step is due, so the GUI can move the
+ * players smoothly in between.
+ */
+public final class RenderSnapshot {
+
+    private final Network network;          // The (frozen) Network of the Game
+    private final long time;                // System.nanoTime() when the last step was taken
+    private final long delay;               // Nanoseconds until the next step (or 0 if the Game is not being stepped)
+    private final int stepsLeft, totalSteps;
+    private final boolean ongoing;
+    private final int[] values;             // Value of each city (by Network index)
+
+    // The players (in the order of Game.getPlayers())
+    private final String[] names;
+    private final Color[] colors;
+    private final int[] money;
+    private final boolean[] enabled;
+    private final int[] from, to, distance, total;
+
+    /**
+     * Makes a snapshot of a Game which is not being stepped.
+     * Must be called by the thread which plays the Game (or while the Game is not played).
+     * @param game   The Game.
+     */
+    public RenderSnapshot(Game game) {
+        this(game, System.nanoTime(), 0);
+    }
+
+    /**
+     * Makes a snapshot of a Game.
+     * Must be called by the thread which plays the Game (or while the Game is not played).
+     * @param game    The Game.
+     * @param time    System.nanoTime() when the last step was taken.
+     * @param delay   Nanoseconds from then until the next step (or 0 if the Game is not being stepped).
+     */
+    public RenderSnapshot(Game game, long time, long delay) {
+        this.time = time;
+        this.delay = delay;
+        network = game.getNetwork();
+        stepsLeft = game.getStepsLeft();
+        totalSteps = game.getTotalSteps();
+        ongoing = game.ongoing();
+        values = new int[network.size()];
+        for(int i = 0; i < values.length; i++) {
+            values[i] = network.getCity(i).getValue();
+        }
+
+        List<Player> players = game.getPlayers();
+        int n = players.size();
+        names = new String[n];
+        colors = new Color[n];
+        money = new int[n];
+        enabled = new boolean[n];
+        from = new int[n];
+        to = new int[n];
+        distance = new int[n];
+        total = new int[n];
+        for(int i = 0; i < n; i++) {
+            Player p = players.get(i);
+            Position pos = p.getPosition();
+            names[i] = p.getName();
+            colors[i] = p.getColor();
+            money[i] = p.getMoney();
+            enabled[i] = isEnabled(game.getSettings(), p);
+            from[i] = network.indexOf(pos.getFrom());
+            to[i] = network.indexOf(pos.getTo());
+            distance[i] = pos.getDistance();
+            total[i] = pos.getTotal();
+        }
+    }
+
+    /**
+     * Whether a player takes part in the game (the AI players can be disabled in the Settings).
+     */
+    private static boolean isEnabled(Settings settings, Player p) {
+        if(p.getClass() == RandomPlayer.class) {
+            return settings.isActive(0);
+        }
+        if(p.getClass() == GreedyPlayer.class) {
+            return settings.isActive(1);
+        }
+        if(p.getClass() == SmartPlayer.class) {
+            return settings.isActive(2);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the Network of the Game.
+     * @return   The Network (which never changes).
+     */
+    public Network getNetwork() {
+        return network;
+    }
+
+    /**
+     * Gets how far the Game has come towards its next step at a given time.
+     * @param now   The time (as System.nanoTime()).
+     * @return      The fraction of the delay between steps which has passed (between 0 and 1),
+     *              or 0 if the Game is not being stepped.
+     */
+    public double getProgress(long now) {
+        if(delay <= 0 || !ongoing) {
+            return 0;
+        }
+        return Math.max(0, Math.min(1, (now - time) / (double) delay));
+    }
+
+    /**
+     * Gets the number of steps left of the game.
+     * @return   The steps left.
+     */
+    public int getStepsLeft() {
+        return stepsLeft;
+    }
+
+    /**
+     * Gets the total number of steps of the game.
+     * @return   The total number of steps.
+     */
+    public int getTotalSteps() {
+        return totalSteps;
+    }
+
+    /**
+     * Whether the game was ongoing (see Game.ongoing()).
+     * @return   True if the game had not ended.
+     */
+    public boolean isOngoing() {
+        return ongoing;
+    }
+
+    /**
+     * Gets the value of a city.
+     * @param city   The Network index of the city.
+     * @return       The value of the city.
+     */
+    public int getValue(int city) {
+        return values[city];
+    }
+
+    /**
+     * Gets the number of players.
+     * @return   The number of players.
+     */
+    public int getPlayerCount() {
+        return names.length;
+    }
+
+    /**
+     * Gets the name of a player.
+     * @param i   The index of the player (in the order of Game.getPlayers()).
+     * @return    The name.
+     */
+    public String getName(int i) {
+        return names[i];
+    }
+
+    /**
+     * Gets the colour of a player.
+     * @param i   The index of the player.
+     * @return    The colour.
+     */
+    public Color getColor(int i) {
+        return colors[i];
+    }
+
+    /**
+     * Gets the money of a player.
+     * @param i   The index of the player.
+     * @return    The money (in €).
+     */
+    public int getMoney(int i) {
+        return money[i];
+    }
+
+    /**
+     * Whether a player takes part in the game (disabled AI players are not drawn).
+     * @param i   The index of the player.
+     * @return    True if the player is enabled.
+     */
+    public boolean isEnabled(int i) {
+        return enabled[i];
+    }
+
+    /**
+     * Gets the city a player travels from.
+     * @param i   The index of the player.
+     * @return    The City.
+     */
+    public City getFrom(int i) {
+        return network.getCity(from[i]);
+    }
+
+    /**
+     * Gets the city a player travels to.
+     * @param i   The index of the player.
+     * @return    The City.
+     */
+    public City getTo(int i) {
+        return network.getCity(to[i]);
+    }
+
+    /**
+     * Gets the number of steps a player has left to its destination.
+     * @param i   The index of the player.
+     * @return    The remaining distance.
+     */
+    public int getDistance(int i) {
+        return distance[i];
+    }
+
+    /**
+     * Gets the length of the road a player travels.
+     * @param i   The index of the player.
+     * @return    The total distance.
+     */
+    public int getTotal(int i) {
+        return total[i];
+    }
+}
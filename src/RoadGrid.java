@@ -0,0 +1,219 @@
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+/**
+ * A uniform grid over the roads of a Network (by the GUI positions of their cities), used to find the roads
+ * crossing the part of the map which is drawn.
+ * Every road is stored once (although the Network has an edge in each direction), in every cell it passes through,
+ * and the roads of every cell are stored contiguously (like the cities of a CityGrid).
+ * Roads to or from a city without a GUI position are left out.
+ */
+public class RoadGrid {
+
+    /** Average number of roads per cell */
+    private static final int ROADS_PER_CELL = 2;
+
+    private Network network;        // The Network the grid was built from
+    private int size;               // Number of roads
+    private int[] from, to;         // Network index of the cities of each road
+    private int[] length;           // Length of each road
+    private int[] x0, y0, x1, y1;   // GUI positions of the cities of each road
+    private int minX, minY;         // Top left corner of the grid (in pixels)
+    private int cellSize;           // Side length of a cell (in pixels)
+    private int columns, rows;      // Size of the grid (in cells)
+    private int[] cellStart;        // Roads of cell i are roads[cellStart[i]] .. roads[cellStart[i+1]-1]
+    private int[] roads;            // Index of the roads, by cell
+    private int[] seen;             // The query in which each road was last found (see roadsIn)
+    private int query;              // Number of queries
+    private Rectangle bounds = new Rectangle(); // The rectangle of the current query
+
+    /**
+     * Builds the grid of a Game.
+     * The roads are numbered in the order of the Network (by the city they start from, then by edge), keeping the
+     * edge from the city whose name comes first.
+     * @param game   The Game (its GUI positions and Network).
+     */
+    public RoadGrid(Game game) {
+        network = game.getNetwork();
+        int edges = network.size() == 0 ? 0 : network.end(network.size() - 1);
+        from = new int[edges];
+        to = new int[edges];
+        length = new int[edges];
+        x0 = new int[edges];
+        y0 = new int[edges];
+        x1 = new int[edges];
+        y1 = new int[edges];
+        minX = Integer.MAX_VALUE;
+        minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for(int c = 0; c < network.size(); c++) {
+            City a = network.getCity(c);
+            Point p = game.getPosition(a);
+            for(int e = network.first(c); e < network.end(c) && p != null; e++) {
+                City b = network.getCity(network.target(e));
+                Point q = game.getPosition(b);
+                if(q == null || a.getName().compareTo(b.getName()) > 0) {
+                    continue;
+                }
+                from[size] = c;
+                to[size] = network.target(e);
+                length[size] = network.length(e);
+                x0[size] = p.x;
+                y0[size] = p.y;
+                x1[size] = q.x;
+                y1[size] = q.y;
+                minX = Math.min(minX, Math.min(p.x, q.x));
+                minY = Math.min(minY, Math.min(p.y, q.y));
+                maxX = Math.max(maxX, Math.max(p.x, q.x));
+                maxY = Math.max(maxY, Math.max(p.y, q.y));
+                size++;
+            }
+        }
+        if(size == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+
+        // Square cells, so there are about size/ROADS_PER_CELL cells, but at least a quarter of the average road long
+        // (so a road passes through a few cells only)
+        long width = (long) maxX - minX + 1, height = (long) maxY - minY + 1;
+        double area = (double) width * height / Math.max(1, size / ROADS_PER_CELL), total = 0;
+        for(int r = 0; r < size; r++) {
+            total += Math.hypot(x1[r] - x0[r], y1[r] - y0[r]);
+        }
+        double cell = Math.max(Math.sqrt(area), total / Math.max(1, size) / 4);
+        cellSize = (int) Math.max(1, Math.min(Integer.MAX_VALUE / 2, Math.ceil(cell)));
+        columns = (int) ((width + cellSize - 1) / cellSize);
+        rows = (int) ((height + cellSize - 1) / cellSize);
+
+        // Count the roads of every cell, then place them (counting sort)
+        cellStart = new int[columns * rows + 1];
+        for(int r = 0; r < size; r++) {
+            addToCells(r, null);
+        }
+        for(int c = 0; c < columns * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] next = Arrays.copyOf(cellStart, columns * rows);
+        roads = new int[cellStart[columns * rows]];
+        for(int r = 0; r < size; r++) {
+            addToCells(r, next);
+        }
+        seen = new int[size];
+    }
+
+    /**
+     * Counts a road in the cells it passes through (if 'next' is 'null'), or places it there.
+     * Goes through the rows the road crosses, and the columns of the part of the road inside each row.
+     */
+    private void addToCells(int r, int[] next) {
+        int top = Math.min(y0[r], y1[r]), bottom = Math.max(y0[r], y1[r]);
+        for(int row = row(top); row <= row(bottom); row++) {
+            double left = Math.min(x0[r], x1[r]), right = Math.max(x0[r], x1[r]);
+            if(top != bottom) {
+                double a = Math.max(top, (long) minY + (long) row * cellSize),
+                       b = Math.min(bottom, (long) minY + (long) (row + 1) * cellSize);
+                double xa = x0[r] + (a - y0[r]) * (x1[r] - x0[r]) / (y1[r] - y0[r]),
+                       xb = x0[r] + (b - y0[r]) * (x1[r] - x0[r]) / (y1[r] - y0[r]);
+                left = Math.max(left, Math.min(xa, xb));
+                right = Math.min(right, Math.max(xa, xb));
+            }
+            for(int col = column((long) Math.floor(left)); col <= column((long) Math.ceil(right)); col++) {
+                int c = row * columns + col;
+                if(next == null) {
+                    cellStart[c + 1]++;
+                } else {
+                    roads[next[c]++] = r;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the Network this grid was built from.
+     * @return   The Network.
+     */
+    public Network getNetwork() {
+        return network;
+    }
+
+    /**
+     * Gets the number of roads.
+     * @return   The number of roads.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the city a road starts from.
+     * @param road   The index of the road.
+     * @return       The Network index of the city.
+     */
+    public int getFrom(int road) {
+        return from[road];
+    }
+
+    /**
+     * Gets the city a road goes to.
+     * @param road   The index of the road.
+     * @return       The Network index of the city.
+     */
+    public int getTo(int road) {
+        return to[road];
+    }
+
+    /**
+     * Gets the length of a road.
+     * @param road   The index of the road.
+     * @return       The length.
+     */
+    public int getLength(int road) {
+        return length[road];
+    }
+
+    /**
+     * Finds the roads crossing a rectangle (or touching it).
+     * @param left     Smallest x-coordinate of the rectangle (in pixels).
+     * @param top      Smallest y-coordinate of the rectangle.
+     * @param right    Largest x-coordinate of the rectangle.
+     * @param bottom   Largest y-coordinate of the rectangle.
+     * @param result   Receives the indices of the roads, in increasing order (must have room for size() roads).
+     * @return         The number of roads found.
+     */
+    public int roadsIn(int left, int top, int right, int bottom, int[] result) {
+        if(size == 0 || right < minX || bottom < minY || left > (long) minX + columns * cellSize
+                || top > (long) minY + rows * cellSize) {
+            return 0;
+        }
+        if(++query == 0) {
+            Arrays.fill(seen, 0);
+            query = 1;
+        }
+        bounds.setBounds(left, top, right - left + 1, bottom - top + 1);
+        int n = 0;
+        for(int row = row(top); row <= row(bottom); row++) {
+            for(int c = row * columns + column(left); c <= row * columns + column(right); c++) {
+                for(int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+                    int r = roads[k];
+                    if(seen[r] != query) {
+                        seen[r] = query;
+                        if(bounds.intersectsLine(x0[r], y0[r], x1[r], y1[r])) {
+                            result[n++] = r;
+                        }
+                    }
+                }
+            }
+        }
+        Arrays.sort(result, 0, n);
+        return n;
+    }
+
+    private int column(long x) {
+        return (int) Math.max(0, Math.min(columns - 1, (x - minX) / cellSize));
+    }
+
+    private int row(long y) {
+        return (int) Math.max(0, Math.min(rows - 1, (y - minY) / cellSize));
+    }
+}
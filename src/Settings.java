@@ -1,8 +1,23 @@
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Settings represents the current settings at a given time.
+ * Changes are saved to 'settings.dat' in the background: the changes made within WRITE_DELAY milliseconds are written
+ * together, through a temporary file which then replaces 'settings.dat', so the file is never half-written.
+ * Pending changes are written when the program exits (or by flush()).
  * @author Nikolaj Ignatieff Schwartzbach
  * @version 1.0.0
  */
@@ -11,6 +26,24 @@ public class Settings {
 	private boolean[] activePlayers;
 	private int minLoss, maxLoss, gameSpeed, tollSize, robRisk;
 	
+	/** Whether or not changes are saved to 'settings.dat' */
+	private volatile boolean persistent = true;
+	
+	/** The file changes are saved to */
+	private Path path = Paths.get("settings.dat");
+	
+	/** How long changes are collected before they are written (in milliseconds) */
+	public static final long WRITE_DELAY = 500;
+	
+	/** Settings with changes which have not been written yet */
+	private static final Set<Settings> pending = Collections.newSetFromMap(new IdentityHashMap<>());
+	
+	/** Held while a file is written, so the files are written in the order the changes were made */
+	private static final Object writeLock = new Object();
+	
+	/** Thread which writes the changes (created on the first change) */
+	private static ScheduledExecutorService writer;
+	
 	/**
 	 * Instantiates a new Settings object based on its values.
 	 * @param activePlayers Which players are active. Must be an array of length 3, where each index corresponds to a given player (0 = random, 1 = greedy, 2 = smart).
@@ -62,6 +95,22 @@ public class Settings {
 		this(collectStrings(str));
 	}
 	
+	/**
+	 * Loads a Settings object from a file.
+	 * @param path The file to load (usually 'settings.dat').
+	 * @return The Settings in the file, or the default Settings if the file does not exist or is malformed.
+	 */
+	public static Settings load(String path){
+		Settings settings;
+		try{
+			settings = new Settings(new String(Files.readAllBytes(Paths.get(path))));
+		} catch(IOException|SettingsException e) {
+			settings = new Settings();
+		}
+		settings.path = Paths.get(path);
+		return settings;
+	}
+	
 	private static String collectStrings(String[] str){
 		StringBuilder sb = new StringBuilder();
 		
@@ -72,7 +121,7 @@ public class Settings {
 	}
 	
 	/**
-	 * Instantiates a Settings object based on its string representation.
+	 * Instantiates a Settings object based on its string representation (without saving it).
 	 * @param s The string representation of this Settings object.
 	 * @throws SettingsException
 	 */
@@ -91,13 +140,13 @@ public class Settings {
 						throw new SettingsException("Expected the first line to have only 3 characters, but received "+line.length()+ "");
 					char[] chars = line.toCharArray();
 					for(int j=0; j<3; j++)
-						setActive(j, chars[j]=='1');
+						activePlayers[j] = chars[j]=='1';
 					break;
 				case 1:
-					setTollToBePaid(Integer.parseInt(line));
+					tollSize = Integer.parseInt(line);
 					break;
 				case 2:
-					setRisk(Integer.parseInt(line));
+					robRisk = Integer.parseInt(line);
 					break;
 				case 3:
 					minLoss = Integer.parseInt(line);
@@ -106,20 +155,90 @@ public class Settings {
 					maxLoss = Integer.parseInt(line);
 					break;
 				case 5:
-					setGameSpeed(Integer.parseInt(line));
+					gameSpeed = Integer.parseInt(line);
 					break;
 			}
 		}
 	}
 	
+	/**
+	 * Changes whether or not this Settings object saves its changes to 'settings.dat'.
+	 * Settings shared by many simultaneous games (e.g. in simulations) should not be persistent.
+	 * @param persistent Whether or not changes should be saved.
+	 */
+	public void setPersistent(boolean persistent){
+		this.persistent = persistent;
+	}
+	
+	/**
+	 * Schedules the changes to be written (unless a write is already scheduled, which then includes them).
+	 */
 	private void save() {
+		if(!persistent)
+			return;
+		synchronized(Settings.class){
+			if(pending.add(this))
+				writer().schedule(this::flush, WRITE_DELAY, TimeUnit.MILLISECONDS);
+		}
+	}
+	
+	/**
+	 * Writes the changes which have not been written yet (if any) right away.
+	 */
+	public void flush(){
+		synchronized(writeLock){
+			String text;
+			synchronized(Settings.class){
+				if(!pending.remove(this) || !persistent)
+					return;
+				text = toString();
+			}
+			try{
+				write(path, text);
+			} catch(IOException e){
+				System.out.println("Unable to save settings: "+e.getMessage());
+			}
+		}
+	}
+	
+	/**
+	 * Writes a file by writing a temporary file, and then moving it in place of the file.
+	 */
+	private static void write(Path path, String text) throws IOException {
+		Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		Files.write(temporary, text.getBytes(StandardCharsets.UTF_8));
 		try{
-			PrintWriter out = new PrintWriter("settings.dat");
-			out.print(this);
-			out.close();
-		} catch(IOException e){
-			System.out.println("Unable to save settings: "+e.getMessage());
+			Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch(AtomicMoveNotSupportedException e){
+			Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+	
+	/**
+	 * Gets the thread which writes the changes, and makes sure pending changes are written when the program exits.
+	 */
+	private static ScheduledExecutorService writer(){
+		if(writer == null){
+			writer = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "Settings writer");
+				t.setDaemon(true);
+				return t;
+			});
+			Runtime.getRuntime().addShutdownHook(new Thread(Settings::flushAll, "Settings flush"));
+		}
+		return writer;
+	}
+	
+	/**
+	 * Writes the changes of all Settings which have not been written yet.
+	 */
+	public static void flushAll(){
+		ArrayList<Settings> settings;
+		synchronized(Settings.class){
+			settings = new ArrayList<>(pending);
 		}
+		for(Settings s : settings)
+			s.flush();
 	}
 	
 	@Override
@@ -0,0 +1,125 @@
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Plays a Game on its own thread, so slow steps (e.g. a SmartPlayer planning its route) never block the Swing
+ * event thread, and painting never delays a step.
+ * Once a Simulation has been created, its Game must only be used on the simulation thread: other threads change it
+ * by submitting commands (see submit), which are run on the simulation thread between steps, in the order they
+ * were submitted.
+ * After every step and command an immutable RenderSnapshot of the Game is published, which the GUI reads without
+ * locking (see getSnapshot).
+ */
+public class Simulation {
+
+    private final Game game;
+    private final Runnable step;                    // Plays one step (run on the simulation thread)
+    private final Runnable listener;                // Shows a new snapshot (run on the Swing event thread)
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean notifying = new AtomicBoolean();  // Whether 'listener' is about to run
+    private volatile RenderSnapshot snapshot;       // The last snapshot published
+
+    private ScheduledFuture<?> steps;               // The scheduled steps (or 'null' while stopped)
+    private int initialDelay, delay;                // Delays before the first step and between steps (in ms)
+    private long stepTime = System.nanoTime();      // When the last step was taken (only used by the thread)
+
+    /**
+     * Creates a new Simulation (which is stopped until start() is called).
+     * @param game           The Game.
+     * @param initialDelay   The delay before the first step after start() (in milliseconds).
+     * @param step           Plays one step of the Game (e.g. Game.step()).
+     * @param listener       Is run on the Swing event thread when a new snapshot has been published
+     *                       (if several are published before it runs, it only runs once).
+     */
+    public Simulation(Game game, int initialDelay, Runnable step, Runnable listener) {
+        this.game = game;
+        this.initialDelay = initialDelay;
+        this.delay = initialDelay;
+        this.step = step;
+        this.listener = listener;
+        snapshot = new RenderSnapshot(game, stepTime, 0);
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Simulation");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Gets the last snapshot of the Game (made after the last step or command).
+     * @return   The RenderSnapshot.
+     */
+    public RenderSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Runs a command on the simulation thread (before the next step), and publishes a snapshot afterwards.
+     * @param command   The command (which may use the Game).
+     */
+    public void submit(Runnable command) {
+        executor.execute(() -> run(command));
+    }
+
+    /**
+     * Changes the delay between steps (from the next call to start()).
+     * @param delay   The delay (in milliseconds).
+     */
+    public synchronized void setDelay(int delay) {
+        this.delay = delay;
+    }
+
+    /**
+     * Starts stepping the Game (unless it is already being stepped).
+     */
+    public synchronized void start() {
+        if(steps == null) {
+            steps = executor.scheduleWithFixedDelay(() -> run(step), initialDelay, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops stepping the Game (a step being taken is finished). Submitted commands are still run.
+     */
+    public synchronized void stop() {
+        if(steps != null) {
+            steps.cancel(false);
+            steps = null;
+        }
+    }
+
+    /**
+     * Gets the delay until the next step.
+     * @return   The delay (in nanoseconds), or 0 if the Game is not being stepped.
+     */
+    private synchronized long nextStep() {
+        return steps == null ? 0 : TimeUnit.MILLISECONDS.toNanos(delay);
+    }
+
+    /**
+     * Runs a step or command, and publishes a snapshot of the Game.
+     * Exceptions are printed (like on the Swing event thread), so they do not stop the following steps.
+     */
+    private void run(Runnable r) {
+        try {
+            r.run();
+        } catch(RuntimeException e) {
+            e.printStackTrace();
+        }
+        if(r == step) {
+            stepTime = System.nanoTime();
+        }
+        snapshot = new RenderSnapshot(game, stepTime, nextStep());
+        if(notifying.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                notifying.set(false);
+                listener.run();
+            });
+        }
+    }
+}
@@ -1,208 +1,207 @@
 import java.awt.Color;
-import java.util.HashMap;
-import java.util.Stack;
 
 /**
- * A smart AI player which uses a depth-first search to determine the optimal PlayerPath.
+ * A smart AI player which plans ahead to determine the path which generates most value.
+ * The search itself is delegated to a Planner (by default a MemoizedPlanner).
+ * The planned route is kept, and followed as long as the values of the cities on it stay close to what was planned.
  * @author Nikolaj Ignatieff Schwartzbach
  * @version 1.0.0
  */
 public class SmartPlayer extends Player 
 {
 
+	/** The Planner used to decide where to travel next */
+	private Planner planner;
+
+	/** The cities of the planned route (in travel order), the lengths of the roads to them, and their planned values */
+	private City[] route = new City[Planner.MAX_DEPTH + 1];
+	private int[] lengths = new int[Planner.MAX_DEPTH + 1], planned = new int[Planner.MAX_DEPTH + 1];
+
+	/** The number of cities on the planned route, and the index of the city currently travelled to */
+	private int routeSize, routeIndex;
+
+	/** How much (as a fraction) the value of a city on the route may change before replanning. Negative to always replan. */
+	private double tolerance = 0.1;
+
+	/** The number of times the Planner has been invoked */
+	private int plans;
+
 	/**
 	 * Instantiates a new SmartPlayer with the specified position.
 	 * @param pos The position of this player.
 	 */
 	public SmartPlayer(Position pos) {
+		this(pos, new MemoizedPlanner());
+	}
+
+	/**
+	 * Instantiates a new SmartPlayer with the specified position and Planner.
+	 * @param pos The position of this player.
+	 * @param planner The Planner used to decide where to travel next.
+	 */
+	public SmartPlayer(Position pos, Planner planner) {
 		super(pos);
+		this.planner = planner;
 	}
 	
+	/**
+	 * Resets this player (sets its money back to 0 and forgets the planned route).
+	 */
+	@Override
+	public void reset() {
+		super.reset();
+		routeSize = 0;
+	}
+
 	@Override
 	public void step() {
 		super.step();
 		if(getPosition().hasArrived()) {
 			City city = getPosition().getTo();
-			setPosition(getCountry().readyToTravel(city, maximizeValue(city, getCountry().getGame().getStepsLeft())));
+			int n = getCountry().getGame().getStepsLeft();
+			City next = followRoute(city, n);
+			if(next == null) {
+				next = plan(city, n);
+			}
+			setPosition(getCountry().readyToTravel(city, next));
 		} 
 	}
-	
+
 	/**
-     * Finds the city which in the long run generates most value.
-     * Performs a DFS of the space of all cities (depth limited by n).
-     * @param c The city to travel fro
-     * @param n The number of steps remaining
-     * @return The city to travel to now.
+	 * Finds the next city on the planned route.
+	 * The route is abandoned if the player is not where it was planned to be, if the rest of the route no longer fits
+	 * in the remaining steps or looks less than half as far ahead as a new plan would, or if the value of a city on the
+	 * rest of the route has changed by more than the tolerance (e.g. because another player visited it).
+	 * @param city The city this player has just arrived to.
+	 * @param n The number of steps remaining.
+	 * @return The city to travel to now (or null if a new plan is needed).
 	 */
-	private City maximizeValue(City c, int n) {
-		HashMap<City, Integer> visited = new HashMap<City, Integer>();
-		visited.put(c, 1);
-		PlayerPath best = maximizeValue(visited, c, n);
-		if(best.isEmpty()) {
-			return c;
+	private City followRoute(City city, int n) {
+		if(tolerance < 0 || routeIndex >= routeSize || !city.equals(route[routeIndex])) {
+			return null;
+		}
+		// Visiting the city changed its value, which is expected
+		for(int k = routeIndex; k < routeSize; k++) {
+			if(route[k].equals(city)) {
+				planned[k] = city.getValue();
+			}
 		}
-		return best.getRoad().getTo();
+		routeIndex++;
+		if(routeIndex >= routeSize) {
+			return null;
+		}
+
+		int remaining = 0;
+		for(int k = routeIndex; k < routeSize; k++) {
+			remaining += lengths[k];
+			if(Math.abs(route[k].getValue() - planned[k]) > tolerance * Math.max(1, Math.abs(planned[k]))) {
+				return null;
+			}
+		}
+		if(remaining > n || 2 * remaining < Math.min(n, Planner.MAX_DEPTH)) {
+			return null;
+		}
+		return route[routeIndex];
 	}
-	
-	/** The maximum depth to search. May become slow if >= 30 */
-	private static final int MAX_DEPTH = 26;
 
 	/**
-     * Finds the city which in the long run generates most value.
-     * Performs a DFS of the space of all cities (depth limited by n).
-     * Takes into account that cities lose value when visited.
-     * @param visits How many times each city is visited.
-     * @param c The city to travel from
-     * @param n The number of steps remaining
-     * @return The path which provides maximum value.
+	 * Invokes the Planner, and stores the planned route (if the Planner provides one).
+	 * @param city The city to plan from.
+	 * @param n The number of steps remaining.
+	 * @return The city to travel to now.
 	 */
-	private PlayerPath maximizeValue(HashMap<City, Integer> visits, City c, int i) {
-		int n = i;
-		if(i>MAX_DEPTH) {
-			n=MAX_DEPTH;
-		}
-		PlayerPath p = new PlayerPath(this);
-		double bestValue = 0;
-		for(Road r : c.getCountry().getRoads(c)) {
-			if(r.getLength() <= n){
-				HashMap<City, Integer> newVisits = new HashMap<City, Integer>(visits);
-				City to = r.getTo();
-				int v = 0;
-				if(newVisits.containsKey(to))
-					v=newVisits.get(to);
-				newVisits.put(to, ++v);
-				
-				PlayerPath subPlayerPath = maximizeValue(newVisits, to, n - r.getLength());
-				subPlayerPath.addRoad(r, v);
-				double newValue = subPlayerPath.getValue();
-				if(newValue > bestValue || (newValue==bestValue && subPlayerPath.getLength() < p.getLength())){
-					p = subPlayerPath;
-					bestValue = newValue;
-				}
+	private City plan(City city, int n) {
+		City next = planner.nextCity(city, n);
+		plans++;
+		routeSize = 0;
+		routeIndex = 0;
+		if(planner instanceof NetworkPlanner) {
+			NetworkPlanner p = (NetworkPlanner) planner;
+			PathBuffer path = p.getPath();
+			Network network = p.getNetwork();
+			for(int k = 0; k < path.size() && k < route.length; k++) {
+				int e = path.getEdge(k);
+				route[k] = network.getCity(network.target(e));
+				lengths[k] = network.length(e);
+				planned[k] = route[k].getValue();
+				routeSize++;
+			}
+			if(routeSize > 0 && !route[0].equals(next)) {
+				routeSize = 0;
 			}
 		}
-		
-		return p;
+		return next;
 	}
 
+	/**
+	 * Appends the state of this SmartPlayer (including the route it follows) to a GameState.
+	 */
 	@Override
-	public String getName(){
-		return "Smart Player";
+	public void saveState(GameState state, Network network) {
+		super.saveState(state, network);
+		state.putInt(plans);
+		state.putInt(routeIndex);
+		state.putInt(routeSize);
+		for(int k = 0; k < routeSize; k++) {
+			state.putCity(network, route[k]);
+			state.putInt(lengths[k]);
+			state.putInt(planned[k]);
+		}
 	}
 	
 	@Override
-	public Color getColor(){
-		return Color.CYAN;
+	public void restoreState(GameState state, Network network) {
+		super.restoreState(state, network);
+		plans = state.getInt();
+		routeIndex = state.getInt();
+		routeSize = state.getInt();
+		for(int k = 0; k < routeSize; k++) {
+			route[k] = state.getCity(network);
+			lengths[k] = state.getInt();
+			planned[k] = state.getInt();
+		}
 	}
-}
-
-/**
- * Represents a possible execution path for the SmartPlayer object.
- * @author Nikolaj Ignatieff Schwartzbach
- * @version 1.0.0
- */
-class PlayerPath {
-
-    /** The roads to visit in this path */
-	private Stack<Road> edges;
-
-	/** The length (in steps) of the path */
-	private int length;
-
-	/** The estimated value of the path */
-	private double value;
-
-	/** How large the penalty is for choosing same city twice */
-	private double impulsiveness = 1.10;
-	
-	/** The SmartPlayer instance which invoked maximizeValue */
-	private SmartPlayer source;
 	
-	public PlayerPath(SmartPlayer source) {
-		this.source = source;
-		edges = new Stack<Road>();
-		length = 0;
-		value = 0;
-	}
-
 	/**
-     * Returns the uppermost Road in this path.
-     * @return the uppermost Road in this path.
+	 * Gets how many times this SmartPlayer has invoked its Planner.
+	 * @return The number of plans computed.
 	 */
-	public Road getRoad() {
-		return edges.peek();
+	public int getPlanCount() {
+		return plans;
 	}
-	
+
 	/**
-	 * Returns the length (in units) of this path.
-	 * @return the length (in units) of this path.
+	 * Changes how much the value of a city on the planned route may change before this SmartPlayer replans.
+	 * @param tolerance The tolerance as a fraction of the planned value (e.g. 0.1 = 10%), or negative to replan at every city.
 	 */
-	public int getLength() {
-		return length;
+	public void setReplanTolerance(double tolerance) {
+		this.tolerance = tolerance;
 	}
-	
+
 	/**
-     * Returns the value (in €) of this path.
-     * @return the value (in €) of this path.
+	 * Gets the Planner of this SmartPlayer.
+	 * @return The Planner used to decide where to travel next.
 	 */
-	public double getValue() {
-		return value;
+	public Planner getPlanner() {
+		return planner;
 	}
-	
+
 	/**
-	 * Determines whether or not this PlayerPath is empty.
-	 * @return True, if this instance is empty; and false otherwise.
+	 * Changes the Planner of this SmartPlayer.
+	 * @param planner The new Planner.
 	 */
-	public boolean isEmpty() {
-		return edges.isEmpty();
+	public void setPlanner(Planner planner) {
+		this.planner = planner;
+		routeSize = 0;
 	}
-	
+
 	@Override
-	public String toString() {
-		if(edges.isEmpty()) {
-			return "[]";
-		}
-		StringBuilder sb = new StringBuilder("[");
-		for(Road r : edges) {
-			sb.append(r + ", ");
-		}
-		return sb.toString().substring(0,sb.length()-2)+"]";
-	}
-	
-	/**
-	 * Adds a new road to this path.
-	 * @param r The road to add
-	 * @param penalty The penalty of the bonus.
-	 */
-	public void addRoad(Road r, int penalty) {
-		if(!edges.isEmpty()) {
-			Road top = getRoad();
-			if(!top.getFrom().equals(r.getTo())) {
-				throw new RuntimeException("Invalid road. You tried to add road to "+r.getTo()+", but the next city is "+top.getFrom());
-			}
-		} else {
-			value += valueFrom(r, penalty);
-		}
-		edges.add(r);
-		length += r.getLength();
-		value+=valueTo(r, penalty);
-	}
-	
-	/**
-	 * Estimates the value of arriving to the 'from' of the road.
-	 * @param r The road
-	 * @param penalty The penalty
-	 */
-	public double valueFrom(Road r, int penalty) {
-		return r.getFrom().getValue() / (Math.pow(2,penalty-1) * Math.pow(impulsiveness, edges.size()));
+	public String getName(){
+		return "Smart Player";
 	}
 	
-	/**
-	 * Estimates the value of arriving to the 'to' of the road.
-	 * @param r The road
-	 * @param penalty The penalty
-	 */
-	public double valueTo(Road r, int penalty) {
-		return r.getTo().getValue() / (Math.pow(2,penalty-1) * Math.pow(impulsiveness, edges.size()));
+	@Override
+	public Color getColor(){
+		return Color.CYAN;
 	}
-}
\ No newline at end of file
+}